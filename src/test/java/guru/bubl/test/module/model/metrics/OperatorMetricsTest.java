@@ -0,0 +1,49 @@
+/*
+ * Copyright Vincent Blouin under the GPL License version 3
+ */
+
+package guru.bubl.test.module.model.metrics;
+
+import guru.bubl.test.module.utils.ModelTestResources;
+import guru.bubl.test.module.utils.ModelTestRunner;
+import guru.bubl.test.module.utils.metrics.OperatorMetricsInterceptor;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Timer;
+import org.junit.Test;
+
+import static guru.bubl.test.module.utils.ModelTestRunner.meterRegistry;
+import static org.hamcrest.Matchers.greaterThan;
+import static org.hamcrest.Matchers.notNullValue;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assume.assumeTrue;
+
+public class OperatorMetricsTest extends ModelTestResources {
+
+    @Test
+    public void times_operator_methods_and_counts_their_round_trips() {
+        assumeTrue(ModelTestRunner.isMetricsEnabled());
+        vertexA.label("timed label");
+        Timer calls = meterRegistry.find(OperatorMetricsInterceptor.CALLS)
+                .tags("operator", "VertexOperator", "method", "label")
+                .timer();
+        assertThat(
+                calls,
+                notNullValue()
+        );
+        assertThat(
+                calls.count(),
+                greaterThan(0L)
+        );
+        DistributionSummary roundTrips = meterRegistry.find(OperatorMetricsInterceptor.ROUND_TRIPS)
+                .tags("operator", "VertexOperator", "method", "label")
+                .summary();
+        assertThat(
+                roundTrips,
+                notNullValue()
+        );
+        assertThat(
+                roundTrips.totalAmount(),
+                greaterThan(0.0)
+        );
+    }
+}
@@ -0,0 +1,83 @@
+/*
+ * Copyright Vincent Blouin under the GPL License version 3
+ */
+
+package guru.bubl.test.module.model.neo4j;
+
+import guru.bubl.test.module.utils.neo4j.CypherProfiler;
+import guru.bubl.test.module.utils.neo4j.CypherProfiler.QueryProfile;
+import org.junit.Test;
+
+import java.util.*;
+
+import static org.hamcrest.Matchers.empty;
+import static org.hamcrest.Matchers.is;
+import static org.junit.Assert.assertThat;
+
+public class CypherProfilerTest {
+
+    private static final String QUERY = "MATCH (n:Resource{uri:$uri}) RETURN n";
+
+    @Test
+    public void db_hits_regress_only_over_threshold_and_slack() {
+        Map<String, QueryProfile> baseline = profiles(1000L, "NodeUniqueIndexSeek");
+        assertThat(
+                CypherProfiler.regressions(profiles(1250L, "NodeUniqueIndexSeek"), baseline, 0.2),
+                is(empty())
+        );
+        assertThat(
+                CypherProfiler.regressions(profiles(1251L, "NodeUniqueIndexSeek"), baseline, 0.2),
+                is(Collections.singletonList(
+                        "db hits went from 1000 to 1251 for " + QUERY
+                ))
+        );
+    }
+
+    @Test
+    public void a_new_scan_is_a_regression_whatever_the_db_hits() {
+        Map<String, QueryProfile> baseline = profiles(1000L, "NodeUniqueIndexSeek");
+        assertThat(
+                CypherProfiler.regressions(profiles(10L, "NodeByLabelScan"), baseline, 0.2),
+                is(Collections.singletonList(
+                        "new NodeByLabelScan for " + QUERY
+                ))
+        );
+        assertThat(
+                CypherProfiler.regressions(profiles(10L, "NodeUniqueIndexSeek", "Expand(All)"), baseline, 0.2),
+                is(empty())
+        );
+    }
+
+    @Test
+    public void a_scan_already_in_the_baseline_is_not_a_regression() {
+        assertThat(
+                CypherProfiler.regressions(
+                        profiles(1000L, "AllNodesScan"),
+                        profiles(1000L, "AllNodesScan"),
+                        0.2
+                ),
+                is(empty())
+        );
+    }
+
+    @Test
+    public void queries_not_in_the_baseline_are_not_regressions() {
+        assertThat(
+                CypherProfiler.regressions(
+                        profiles(100000L, "AllNodesScan"),
+                        new TreeMap<>(),
+                        0.2
+                ),
+                is(empty())
+        );
+    }
+
+    private Map<String, QueryProfile> profiles(Long dbHits, String... operators) {
+        Map<String, QueryProfile> profiles = new TreeMap<>();
+        profiles.put(
+                QUERY,
+                new QueryProfile(dbHits, 1L, new TreeSet<>(Arrays.asList(operators)))
+        );
+        return profiles;
+    }
+}
@@ -0,0 +1,79 @@
+/*
+ * Copyright Vincent Blouin under the GPL License version 3
+ */
+
+package guru.bubl.test.module.model.neo4j;
+
+import guru.bubl.module.model.graph.vertex.VertexOperator;
+import guru.bubl.test.module.utils.FixtureSnapshot;
+import guru.bubl.test.module.utils.ModelTestResources;
+import org.junit.Test;
+import org.neo4j.driver.Session;
+
+import java.net.URI;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import static org.hamcrest.Matchers.is;
+import static org.junit.Assert.assertThat;
+
+public class FixtureSnapshotTest extends ModelTestResources {
+
+    @Test
+    public void restore_brings_back_the_captured_graph() {
+        FixtureSnapshot snapshot = FixtureSnapshot.capture(driver);
+        Integer nbVertices = numberOfVertices();
+        Integer nbEdges = numberOfEdges();
+        Map<URI, String> labels = labelsOfAllVertices();
+        Set<URI> edgeUris = urisOfAllEdges();
+        Long nbRelationshipsToOtherNodes = nbRelationshipsToOtherNodes();
+        vertexB.remove();
+        vertexA.addVertexAndRelation();
+        vertexC.label("changed before restore");
+        snapshot.restore(driver);
+        assertThat(
+                numberOfVertices(),
+                is(nbVertices)
+        );
+        assertThat(
+                numberOfEdges(),
+                is(nbEdges)
+        );
+        assertThat(
+                labelsOfAllVertices(),
+                is(labels)
+        );
+        assertThat(
+                urisOfAllEdges(),
+                is(edgeUris)
+        );
+        assertThat(
+                nbRelationshipsToOtherNodes(),
+                is(nbRelationshipsToOtherNodes)
+        );
+    }
+
+    private Map<URI, String> labelsOfAllVertices() {
+        return wholeGraph.getAllVertices().stream().collect(Collectors.toMap(
+                VertexOperator::uri,
+                VertexOperator::label
+        ));
+    }
+
+    private Set<URI> urisOfAllEdges() {
+        return wholeGraph.getAllEdges().stream().map(
+                edge -> edge.uri()
+        ).collect(Collectors.toSet());
+    }
+
+    private Long nbRelationshipsToOtherNodes() {
+        try (Session session = driver.session()) {
+            return session.run(
+                    "MATCH (a)-[r]-(b) " +
+                            "WHERE (a:Resource OR a:Notification) AND NOT (b:Resource OR b:Notification) " +
+                            "RETURN count(r) AS nb"
+            ).single().get("nb").asLong();
+        }
+    }
+}
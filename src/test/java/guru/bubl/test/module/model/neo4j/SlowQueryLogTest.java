@@ -0,0 +1,50 @@
+/*
+ * Copyright Vincent Blouin under the GPL License version 3
+ */
+
+package guru.bubl.test.module.model.neo4j;
+
+import guru.bubl.test.module.utils.ModelTestResources;
+import guru.bubl.test.module.utils.neo4j.SlowQueryLog;
+import org.junit.Test;
+import org.neo4j.driver.Session;
+
+import javax.inject.Inject;
+
+import static org.hamcrest.Matchers.is;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assume.assumeTrue;
+import static org.neo4j.driver.Values.parameters;
+
+public class SlowQueryLogTest extends ModelTestResources {
+
+    @Inject
+    protected SlowQueryLog slowQueryLog;
+
+    @Test
+    public void logs_queries_over_threshold_with_redacted_parameters_and_nb_records() {
+        assumeTrue(SlowQueryLog.isEnabled());
+        Long thresholdMillis = slowQueryLog.getThresholdMillis();
+        slowQueryLog.setThresholdMillis(0L);
+        slowQueryLog.clear();
+        try (Session session = driver.session()) {
+            session.run(
+                    "MATCH (n:Resource{uri:$uri}) RETURN n",
+                    parameters(
+                            "uri", vertexA.uri().toString()
+                    )
+            ).list();
+        } finally {
+            slowQueryLog.setThresholdMillis(thresholdMillis);
+        }
+        SlowQueryLog.SlowQuery slowQuery = slowQueryLog.recent().get(0);
+        assertThat(
+                slowQuery.getNbRecords(),
+                is(1L)
+        );
+        assertThat(
+                slowQuery.getParameters().get("uri"),
+                is("<" + vertexA.uri().toString().length() + " chars>")
+        );
+    }
+}
@@ -0,0 +1,79 @@
+/*
+ * Copyright Vincent Blouin under the GPL License version 3
+ */
+
+package guru.bubl.test.module.model.synthetic;
+
+import guru.bubl.module.model.graph.vertex.VertexOperator;
+import guru.bubl.test.module.utils.ModelTestResources;
+import guru.bubl.test.module.utils.synthetic.SyntheticGraph;
+import guru.bubl.test.module.utils.synthetic.SyntheticGraphGenerator;
+import org.junit.Test;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import static guru.bubl.test.module.utils.ModelTestRunner.injector;
+import static org.hamcrest.Matchers.is;
+import static org.junit.Assert.assertThat;
+
+public class SyntheticGraphGeneratorTest extends ModelTestResources {
+
+    @Test
+    public void creates_the_vertices_it_reports() {
+        removeAll();
+        SyntheticGraph graph = smallGenerator().generate();
+        assertThat(
+                numberOfVertices(),
+                is(graph.numberOfVertices())
+        );
+        assertThat(
+                graph.getUsers().size(),
+                is(3)
+        );
+    }
+
+    @Test
+    public void same_seed_gives_same_graph() {
+        removeAll();
+        Map<String, Object> summary = summaryOf(smallGenerator().generate());
+        removeAll();
+        assertThat(
+                summaryOf(smallGenerator().generate()),
+                is(summary)
+        );
+    }
+
+    private SyntheticGraphGenerator smallGenerator() {
+        return injector.getInstance(SyntheticGraphGenerator.class)
+                .withSeed(7L)
+                .nbUsers(3)
+                .nbVerticesPerUser(25)
+                .nbFriendsPerUser(1);
+    }
+
+    private Map<String, Object> summaryOf(SyntheticGraph graph) {
+        Map<String, Object> summary = new LinkedHashMap<>();
+        summary.put("labels", sortedLabelsOfAllVertices());
+        summary.put("nbEdges", numberOfEdges());
+        summary.put("shareLevels", wholeGraph.getAllVertices().stream().collect(Collectors.groupingBy(
+                VertexOperator::getShareLevel,
+                Collectors.counting()
+        )));
+        summary.put("nbTags", graph.getTagUris().size());
+        summary.put("nbGroupRelations", graph.getGroupRelationUris().size());
+        summary.put("nbPatterns", graph.getPatternUris().size());
+        summary.put("nbFriendships", graph.getUsers().stream().mapToInt(
+                user -> friendManagerFactory.forUser(user).list().size()
+        ).sum());
+        return summary;
+    }
+
+    private List<String> sortedLabelsOfAllVertices() {
+        return wholeGraph.getAllVertices().stream().map(
+                VertexOperator::label
+        ).sorted().collect(Collectors.toList());
+    }
+}
@@ -0,0 +1,129 @@
+/*
+ * Copyright Vincent Blouin under the GPL License version 3
+ */
+
+package guru.bubl.test.module.model.synthetic;
+
+import guru.bubl.module.model.User;
+import guru.bubl.module.model.UserUris;
+import guru.bubl.test.module.utils.synthetic.SyntheticGraph;
+import guru.bubl.test.module.utils.synthetic.SyntheticParameters;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.net.URI;
+import java.util.*;
+
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.isIn;
+import static org.junit.Assert.assertThat;
+
+public class SyntheticParametersTest {
+
+    private static final String QUERY = "MATCH (n:Resource{uri:$uri}) RETURN n";
+
+    private SyntheticGraph graph;
+    private URI vertexOfA;
+    private URI vertexOfB;
+    private URI edgeOfB;
+
+    @Before
+    public void before() {
+        graph = new SyntheticGraph();
+        for (Integer index = 0; index < 2; index++) {
+            String username = "synthetic_" + index;
+            graph.getUsers().add(
+                    User.withEmail(username + "@example.org").setUsername(username)
+            );
+            UserUris userUris = new UserUris(username);
+            for (Integer i = 0; i < 3; i++) {
+                graph.getVertexUris().add(userUris.vertexUriFromShortId(UUID.randomUUID().toString()));
+                graph.getRelationUris().add(userUris.edgeUriFromShortId(UUID.randomUUID().toString()));
+            }
+        }
+        vertexOfA = new UserUris("fixture_a").vertexUriFromShortId(UUID.randomUUID().toString());
+        vertexOfB = new UserUris("fixture_b").vertexUriFromShortId(UUID.randomUUID().toString());
+        edgeOfB = new UserUris("fixture_b").edgeUriFromShortId(UUID.randomUUID().toString());
+    }
+
+    @Test
+    public void fixture_users_are_given_synthetic_users_in_the_order_of_their_usernames() {
+        SyntheticParameters syntheticParameters = learned();
+        assertThat(
+                syntheticParameters.map(QUERY, parameters("owner", "fixture_a")).get("owner"),
+                is("synthetic_0")
+        );
+        assertThat(
+                syntheticParameters.map(QUERY, parameters("owner", "fixture_b")).get("owner"),
+                is("synthetic_1")
+        );
+    }
+
+    @Test
+    public void uris_are_mapped_to_entities_of_the_same_kind_and_owner() {
+        SyntheticParameters syntheticParameters = learned();
+        assertThat(
+                URI.create((String) syntheticParameters.map(QUERY, parameters("uri", vertexOfA.toString())).get("uri")),
+                isIn(ownedBy(graph.getVertexUris(), "synthetic_0"))
+        );
+        assertThat(
+                URI.create((String) syntheticParameters.map(QUERY, parameters("uri", edgeOfB.toString())).get("uri")),
+                isIn(ownedBy(graph.getRelationUris(), "synthetic_1"))
+        );
+        assertThat(
+                syntheticParameters.getUnmapped().isEmpty(),
+                is(true)
+        );
+    }
+
+    @Test
+    public void mapping_does_not_depend_on_queries_mapped_before() {
+        Map<String, Object> parameters = parameters("uri", vertexOfB.toString());
+        SyntheticParameters first = learned();
+        SyntheticParameters afterOthers = learned();
+        afterOthers.map("MATCH (n) RETURN n", parameters);
+        afterOthers.map(QUERY, parameters("uri", vertexOfA.toString()));
+        afterOthers.map(QUERY, parameters("other", vertexOfB.toString()));
+        assertThat(
+                afterOthers.map(QUERY, parameters),
+                is(first.map(QUERY, parameters))
+        );
+    }
+
+    @Test
+    public void same_uri_is_mapped_to_same_entity_within_a_query() {
+        Map<String, Object> parameters = new HashMap<>();
+        parameters.put("sourceUri", vertexOfA.toString());
+        parameters.put("destinationUri", vertexOfA.toString());
+        Map<String, Object> mapped = learned().map(QUERY, parameters);
+        assertThat(
+                mapped.get("sourceUri"),
+                is(mapped.get("destinationUri"))
+        );
+    }
+
+    private SyntheticParameters learned() {
+        SyntheticParameters syntheticParameters = new SyntheticParameters(graph);
+        syntheticParameters.learn(Arrays.asList(
+                parameters("uri", vertexOfB.toString()),
+                parameters("uri", vertexOfA.toString())
+        ));
+        return syntheticParameters;
+    }
+
+    private Map<String, Object> parameters(String key, Object value) {
+        Map<String, Object> parameters = new HashMap<>();
+        parameters.put(key, value);
+        return parameters;
+    }
+
+    private List<URI> ownedBy(List<URI> uris, String username) {
+        List<URI> owned = new ArrayList<>();
+        for (URI uri : uris) {
+            if (uri.toString().contains("/service/users/" + username + "/")) {
+                owned.add(uri);
+            }
+        }
+        return owned;
+    }
+}
@@ -0,0 +1,61 @@
+/*
+ * Copyright Vincent Blouin under the GPL License version 3
+ */
+
+package guru.bubl.test.module.model.workload;
+
+import guru.bubl.test.module.utils.ModelTestResources;
+import guru.bubl.test.module.utils.synthetic.SyntheticGraph;
+import guru.bubl.test.module.utils.synthetic.SyntheticGraphGenerator;
+import guru.bubl.test.module.utils.workload.WorkloadDriver;
+import guru.bubl.test.module.utils.workload.WorkloadOperation;
+import guru.bubl.test.module.utils.workload.WorkloadReport;
+import org.junit.Test;
+
+import java.util.EnumMap;
+import java.util.Map;
+
+import static guru.bubl.test.module.utils.ModelTestRunner.injector;
+import static org.hamcrest.Matchers.greaterThan;
+import static org.hamcrest.Matchers.is;
+import static org.junit.Assert.assertThat;
+
+public class WorkloadDriverTest extends ModelTestResources {
+
+    @Test
+    public void runs_every_operation_of_the_mix() throws Exception {
+        removeAll();
+        SyntheticGraph graph = injector.getInstance(SyntheticGraphGenerator.class)
+                .withSeed(7L)
+                .nbUsers(3)
+                .nbVerticesPerUser(25)
+                .nbFriendsPerUser(1)
+                .patternProbability(0.5)
+                .generate();
+        Map<WorkloadOperation, Integer> mix = new EnumMap<>(WorkloadOperation.class);
+        for (WorkloadOperation operation : WorkloadOperation.values()) {
+            mix.put(operation, 1);
+        }
+        WorkloadReport report = injector.getInstance(WorkloadDriver.class)
+                .nbThreads(2)
+                .durationInSeconds(2L)
+                .minOperationsPerThread(60)
+                .mix(mix)
+                .run(graph);
+        for (WorkloadOperation operation : WorkloadOperation.values()) {
+            assertThat(
+                    operation + " did not run\n" + report,
+                    report.getNbOperations(operation),
+                    greaterThan(0L)
+            );
+        }
+        assertThat(
+                report.getNbOtherErrors(),
+                is(0L)
+        );
+        assertThat(
+                report.getNbStragglers(),
+                is(0L)
+        );
+    }
+}
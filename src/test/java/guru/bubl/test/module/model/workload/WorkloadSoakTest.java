@@ -0,0 +1,52 @@
+/*
+ * Copyright Vincent Blouin under the GPL License version 3
+ */
+
+package guru.bubl.test.module.model.workload;
+
+import guru.bubl.test.module.utils.ModelTestResources;
+import guru.bubl.test.module.utils.synthetic.SyntheticGraph;
+import guru.bubl.test.module.utils.synthetic.SyntheticGraphGenerator;
+import guru.bubl.test.module.utils.workload.WorkloadDriver;
+import guru.bubl.test.module.utils.workload.WorkloadReport;
+import org.junit.Test;
+
+import static guru.bubl.test.module.utils.ModelTestRunner.injector;
+import static org.hamcrest.Matchers.greaterThan;
+import static org.hamcrest.Matchers.is;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assume.assumeTrue;
+
+/*
+ * Skipped unless asked for:
+ * mvn test -Dtest=WorkloadSoakTest -Dsoak=true -Dsoak.users=50 -Dsoak.threads=64 -Dsoak.seconds=600
+ */
+public class WorkloadSoakTest extends ModelTestResources {
+
+    @Test
+    public void production_mix_completes_without_unexpected_errors() throws Exception {
+        assumeTrue(Boolean.getBoolean("soak"));
+        SyntheticGraph graph = injector.getInstance(SyntheticGraphGenerator.class)
+                .nbUsers(Integer.getInteger("soak.users", 20))
+                .nbVerticesPerUser(Integer.getInteger("soak.verticesPerUser", 200))
+                .generate();
+        System.out.println("soak graph: " + graph);
+        WorkloadReport report = injector.getInstance(WorkloadDriver.class)
+                .nbThreads(Integer.getInteger("soak.threads", 32))
+                .durationInSeconds(Long.getLong("soak.seconds", 60L))
+                .run(graph);
+        System.out.println(report);
+        assertThat(
+                report.getNbOperations(),
+                greaterThan(0L)
+        );
+        assertThat(
+                report.getNbOtherErrors(),
+                is(0L)
+        );
+        assertThat(
+                report.getNbStragglers(),
+                is(0L)
+        );
+    }
+}
@@ -0,0 +1,115 @@
+/*
+ * Copyright Vincent Blouin under the GPL License version 3
+ */
+
+package guru.bubl.test.module.utils;
+
+import org.neo4j.driver.Driver;
+import org.neo4j.driver.Record;
+import org.neo4j.driver.Session;
+import org.neo4j.driver.Transaction;
+
+import java.util.*;
+import java.util.stream.Collectors;
+
+import static org.neo4j.driver.Values.parameters;
+
+/*
+ * Copy of the nodes and relationships that ModelTestResources.removeAll()
+ * wipes. Restoring it recreates them with the same labels and properties,
+ * so uris and everything keyed on them stay valid between tests.
+ */
+public class FixtureSnapshot {
+
+    private final List<Map<String, Object>> nodes;
+    private final List<Map<String, Object>> relationships;
+
+    /*
+     * Off until a run of the whole suite is green with -Dfixture.snapshot=true
+     * and the average setup time printed by TestTimingListener is compared
+     * with and without it.
+     */
+    public static Boolean isEnabled() {
+        return Boolean.getBoolean("fixture.snapshot");
+    }
+
+    public static FixtureSnapshot capture(Driver driver) {
+        try (Session session = driver.session()) {
+            List<Map<String, Object>> nodes = session.run(
+                    "MATCH (n) WHERE n:Resource OR n:Notification " +
+                            "RETURN id(n) AS id, labels(n) AS labels, properties(n) AS props"
+            ).list(Record::asMap);
+            List<Map<String, Object>> relationships = session.run(
+                    "MATCH (a)-[r]->(b) " +
+                            "WHERE a:Resource OR a:Notification OR b:Resource OR b:Notification " +
+                            "RETURN id(a) AS from, id(b) AS to, type(r) AS type, properties(r) AS props"
+            ).list(Record::asMap);
+            return new FixtureSnapshot(nodes, relationships);
+        }
+    }
+
+    private FixtureSnapshot(List<Map<String, Object>> nodes, List<Map<String, Object>> relationships) {
+        this.nodes = nodes;
+        this.relationships = relationships;
+    }
+
+    public void restore(Driver driver) {
+        try (Session session = driver.session()) {
+            session.writeTransaction(tx -> {
+                tx.run("MATCH (n:Resource) DETACH DELETE n");
+                tx.run("MATCH (n:Notification) DETACH DELETE n");
+                Map<Long, Long> newIds = createNodes(tx);
+                createRelationships(tx, newIds);
+                return null;
+            });
+        }
+    }
+
+    public Integer numberOfNodes() {
+        return nodes.size();
+    }
+
+    private Map<Long, Long> createNodes(Transaction tx) {
+        Map<Long, Long> newIds = new HashMap<>();
+        Map<String, List<Map<String, Object>>> nodesByLabels = nodes.stream().collect(
+                Collectors.groupingBy(node -> labelsClause(node.get("labels")))
+        );
+        nodesByLabels.forEach((labels, nodesWithLabels) -> tx.run(
+                "UNWIND $nodes AS node " +
+                        "CREATE (n" + labels + ") SET n = node.props " +
+                        "RETURN node.id AS oldId, id(n) AS newId",
+                parameters("nodes", nodesWithLabels)
+        ).forEachRemaining(record -> newIds.put(
+                record.get("oldId").asLong(),
+                record.get("newId").asLong()
+        )));
+        return newIds;
+    }
+
+    private void createRelationships(Transaction tx, Map<Long, Long> newIds) {
+        Map<String, List<Map<String, Object>>> relationshipsByType = new HashMap<>();
+        for (Map<String, Object> relationship : relationships) {
+            Map<String, Object> remapped = new HashMap<>(relationship);
+            remapped.put("from", newIds.getOrDefault((Long) relationship.get("from"), (Long) relationship.get("from")));
+            remapped.put("to", newIds.getOrDefault((Long) relationship.get("to"), (Long) relationship.get("to")));
+            relationshipsByType.computeIfAbsent(
+                    (String) relationship.get("type"),
+                    type -> new ArrayList<>()
+            ).add(remapped);
+        }
+        relationshipsByType.forEach((type, relationshipsOfType) -> tx.run(
+                "UNWIND $relationships AS rel " +
+                        "MATCH (a) WHERE id(a) = rel.from " +
+                        "MATCH (b) WHERE id(b) = rel.to " +
+                        "CREATE (a)-[r:`" + type + "`]->(b) SET r = rel.props",
+                parameters("relationships", relationshipsOfType)
+        ).consume());
+    }
+
+    @SuppressWarnings("unchecked")
+    private String labelsClause(Object labels) {
+        return ((List<String>) labels).stream().sorted().map(
+                label -> ":`" + label + "`"
+        ).collect(Collectors.joining());
+    }
+}
@@ -0,0 +1,66 @@
+/*
+ * Copyright Vincent Blouin under the GPL License version 3
+ */
+
+package guru.bubl.test.module.utils;
+
+import org.neo4j.driver.Driver;
+import org.neo4j.driver.Session;
+
+import static org.neo4j.driver.Values.parameters;
+
+/*
+ * The store directory and bolt port of the embedded db are chosen by
+ * Neo4jModuleForTests, outside of this module. Under -Pparallel each fork
+ * commits a lock node for the current build in the db it got, then checks
+ * before every test that no other fork of the build left one there. Forks
+ * starting together can miss each other's lock on their first test, but
+ * not on the next one, so forks sharing one db fail instead of wiping
+ * each other's fixtures.
+ */
+public class ForkIsolation {
+
+    public static Boolean isForked() {
+        return System.getProperty("test.fork") != null;
+    }
+
+    public static void claim(Driver driver) {
+        try (Session session = driver.session()) {
+            session.run(
+                    "MERGE (lock:ForkLock{run:$run, fork:$fork})",
+                    parameters(
+                            "run", run(),
+                            "fork", fork()
+                    )
+            ).consume();
+        }
+    }
+
+    public static void check(Driver driver) {
+        try (Session session = driver.session()) {
+            Long nbOtherForks = session.run(
+                    "OPTIONAL MATCH (other:ForkLock{run:$run}) " +
+                            "WHERE other.fork <> $fork " +
+                            "RETURN count(other) AS nbOtherForks",
+                    parameters(
+                            "run", run(),
+                            "fork", fork()
+                    )
+            ).single().get("nbOtherForks").asLong();
+            if (nbOtherForks > 0) {
+                throw new IllegalStateException(
+                        "fork " + fork() + " shares its embedded db with " + nbOtherForks +
+                                " other forks, run -Pparallel with -Dtest.forkCount=1"
+                );
+            }
+        }
+    }
+
+    private static String run() {
+        return System.getProperty("test.run", "");
+    }
+
+    private static String fork() {
+        return System.getProperty("test.fork");
+    }
+}
@@ -4,6 +4,7 @@
 
 package guru.bubl.test.module.utils;
 
+import com.google.inject.Injector;
 import guru.bubl.module.model.FriendlyResourceFactory;
 import guru.bubl.module.model.ModelTestScenarios;
 import guru.bubl.module.model.User;
@@ -128,9 +129,31 @@ public class ModelTestResources {
 
     protected GraphElementsOfTestScenario graphElementsOfTestScenario;
 
+    private static FixtureSnapshot fixtureSnapshot;
+    private static Injector fixtureSnapshotInjector;
+    private static User fixtureUser;
+    private static User fixtureAnotherUser;
+    private static GraphElementsOfTestScenario fixtureGraphElements;
+    private static URI fixtureVertexOfAnotherUserUri;
+
+    protected static Long nbFixtureSetups = 0L;
+    protected static Long fixtureSetupNanos = 0L;
+
     @Before
     public void before() {
+        ModelTestRunner.ensureInjector();
         ModelTestRunner.injector.injectMembers(this);
+        Long setupStart = System.nanoTime();
+        if (FixtureSnapshot.isEnabled() && fixtureSnapshotInjector == ModelTestRunner.injector) {
+            restoreFixture();
+        } else {
+            buildFixture();
+        }
+        nbFixtureSetups++;
+        fixtureSetupNanos += System.nanoTime() - setupStart;
+    }
+
+    private void buildFixture() {
         removeAll();
         user = User.withEmail(
                 "roger.lamothe@example.org"
@@ -155,6 +178,32 @@ public class ModelTestResources {
                 anotherUserGraph.createVertex().uri()
         );
         vertexOfAnotherUser.label("vertex of another user");
+        if (FixtureSnapshot.isEnabled()) {
+            fixtureSnapshot = FixtureSnapshot.capture(driver);
+            fixtureSnapshotInjector = ModelTestRunner.injector;
+            fixtureUser = user;
+            fixtureAnotherUser = anotherUser;
+            fixtureGraphElements = graphElementsOfTestScenario;
+            fixtureVertexOfAnotherUserUri = vertexOfAnotherUser.uri();
+        }
+    }
+
+    private void restoreFixture() {
+        fixtureSnapshot.restore(driver);
+        user = fixtureUser;
+        anotherUser = fixtureAnotherUser;
+        userGraph = userGraphFactory.withUser(user);
+        graphElementsOfTestScenario = fixtureGraphElements;
+        vertexA = graphElementsOfTestScenario.getVertexA();
+        vertexB = graphElementsOfTestScenario.getVertexB();
+        vertexC = graphElementsOfTestScenario.getVertexC();
+        groupRelation = graphElementsOfTestScenario.getGroupRelation();
+        vertexD = graphElementsOfTestScenario.getVertexD();
+        vertexE = graphElementsOfTestScenario.getVertexE();
+        anotherUserGraph = userGraphFactory.withUser(anotherUser);
+        vertexOfAnotherUser = vertexFactory.withUri(
+                fixtureVertexOfAnotherUserUri
+        );
     }
 
     protected SubGraphPojo wholeGraphAroundDefaultCenterVertex() {
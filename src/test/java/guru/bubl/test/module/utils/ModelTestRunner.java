@@ -7,6 +7,8 @@ package guru.bubl.test.module.utils;
 import com.google.inject.AbstractModule;
 import com.google.inject.Guice;
 import com.google.inject.Injector;
+import com.google.inject.Module;
+import com.google.inject.util.Modules;
 import guru.bubl.module.model.ModelModule;
 import guru.bubl.module.model.ModelTestModule;
 import guru.bubl.module.model.ModelTestScenarios;
@@ -14,25 +16,61 @@ import guru.bubl.module.model.test.GraphComponentTest;
 import guru.bubl.module.neo4j_graph_manipulator.graph.Neo4jModule;
 import guru.bubl.module.neo4j_graph_manipulator.graph.embedded.admin.Neo4jModuleForTests;
 import guru.bubl.module.neo4j_user_repository.Neo4jUserRepositoryModule;
+import guru.bubl.test.module.utils.metrics.OperatorMetricsModule;
+import guru.bubl.test.module.utils.metrics.OperatorMetricsSummary;
+import guru.bubl.test.module.utils.neo4j.CypherProfiler;
+import guru.bubl.test.module.utils.neo4j.DriverInterception;
+import guru.bubl.test.module.utils.neo4j.Neo4jQueryListener;
+import guru.bubl.test.module.utils.neo4j.SlowQueryLog;
+import guru.bubl.test.module.utils.synthetic.SyntheticGraphGenerator;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.AfterClass;
 import org.junit.BeforeClass;
+import org.neo4j.driver.Driver;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
 
 public class ModelTestRunner {
     public static Injector injector;
-
+    public static final MeterRegistry meterRegistry = new SimpleMeterRegistry();
+    public static final CypherProfiler cypherProfiler = new CypherProfiler();
+    public static final SlowQueryLog slowQueryLog = SlowQueryLog.fromSystemProperties();
+    private static IllegalStateException forkIsolationFailure;
 
     @BeforeClass
     public static void realBeforeClass() {
-        injector = Guice.createInjector(
+        Module neo4jModules = Modules.combine(
                 Neo4jModuleForTests.usingEmbedded(),
-                Neo4jModule.usingEmbedded(),
+                Neo4jModule.usingEmbedded()
+        );
+        OperatorMetricsModule operatorMetricsModule = new OperatorMetricsModule(meterRegistry);
+        List<Neo4jQueryListener> queryListeners = new ArrayList<>();
+        if (SlowQueryLog.isEnabled()) {
+            queryListeners.add(slowQueryLog);
+        }
+        if (isMetricsEnabled()) {
+            queryListeners.add(operatorMetricsModule.roundTripCounter());
+        }
+        if (CypherProfiler.isEnabled()) {
+            queryListeners.add(cypherProfiler);
+        }
+        injector = Guice.createInjector(
+                queryListeners.isEmpty() ? neo4jModules : DriverInterception.around(
+                        neo4jModules,
+                        queryListeners.toArray(new Neo4jQueryListener[0])
+                ),
                 ModelModule.forTesting(),
                 new ModelTestModule(),
                 new Neo4jUserRepositoryModule(),
+                isMetricsEnabled() ? operatorMetricsModule : Modules.EMPTY_MODULE,
                 new AbstractModule() {
                     @Override
                     protected void configure() {
                         requireBinding(ModelTestScenarios.class);
+                        bind(SlowQueryLog.class).toInstance(slowQueryLog);
                     }
                 }
         );
@@ -40,8 +78,80 @@ public class ModelTestRunner {
                 .beforeClass();
     }
 
+    public static Boolean isMetricsEnabled() {
+        return Boolean.parseBoolean(
+                System.getProperty("model.metrics", "true")
+        );
+    }
+
+    /*
+     * Test classes run outside of the ModelTests suite (parallel profile)
+     * have no suite level @BeforeClass, so the first test of the fork
+     * builds the injector and the fork clears its own db when it exits.
+     * A forked run checks before every test that no other fork uses its
+     * db, and once that failed every later test of the fork fails too.
+     */
+    public static synchronized void ensureInjector() {
+        if (forkIsolationFailure != null) {
+            throw forkIsolationFailure;
+        }
+        if (injector == null) {
+            if (CypherProfiler.isEnabled()) {
+                throw new IllegalStateException(
+                        "-Pcypher-profile checks the queries when the ModelTests suite ends, it can't run with -Pparallel or on single test classes"
+                );
+            }
+            realBeforeClass();
+            Runtime.getRuntime().addShutdownHook(
+                    new Thread(() -> {
+                        try {
+                            realAfterClass();
+                        } catch (Exception e) {
+                            throw new RuntimeException(e);
+                        }
+                    })
+            );
+            if (ForkIsolation.isForked()) {
+                ForkIsolation.claim(
+                        injector.getInstance(Driver.class)
+                );
+            }
+        }
+        if (ForkIsolation.isForked()) {
+            try {
+                ForkIsolation.check(
+                        injector.getInstance(Driver.class)
+                );
+            } catch (IllegalStateException e) {
+                forkIsolationFailure = e;
+                throw e;
+            }
+        }
+    }
+
     @AfterClass
-    public static void realAfterClass() {
-        Neo4jModuleForTests.clearDb();
+    public static void realAfterClass() throws Exception {
+        if (slowQueryLog.getNbLogged() > 0) {
+            System.out.println(slowQueryLog);
+        }
+        if (isMetricsEnabled()) {
+            System.out.println(
+                    OperatorMetricsSummary.of(meterRegistry)
+            );
+        }
+        try {
+            if (CypherProfiler.isEnabled()) {
+                cypherProfiler.check(
+                        injector.getInstance(Driver.class),
+                        injector.getInstance(SyntheticGraphGenerator.class),
+                        new File(System.getProperty(
+                                "cypher.profile.baseline",
+                                "src/test/resources/cypher-profile-baseline.json"
+                        ))
+                );
+            }
+        } finally {
+            Neo4jModuleForTests.clearDb();
+        }
     }
 }
@@ -0,0 +1,86 @@
+/*
+ * Copyright Vincent Blouin under the GPL License version 3
+ */
+
+package guru.bubl.test.module.utils;
+
+import org.apache.commons.io.FileUtils;
+import org.junit.runner.Description;
+import org.junit.runner.Result;
+import org.junit.runner.notification.RunListener;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/*
+ * Registered as a surefire listener. Writes the duration of every test,
+ * slowest first, to the file given by the test.timings.report system
+ * property and prints the slowest ones at the end of the run.
+ */
+public class TestTimingListener extends RunListener {
+
+    private static final int NB_SLOWEST_TO_PRINT = 20;
+
+    private final Map<Description, Long> startTimes = new ConcurrentHashMap<>();
+    private final Map<Description, Long> durations = new ConcurrentHashMap<>();
+
+    @Override
+    public void testStarted(Description description) {
+        startTimes.put(description, System.nanoTime());
+    }
+
+    @Override
+    public void testFinished(Description description) {
+        Long start = startTimes.remove(description);
+        if (start == null) {
+            return;
+        }
+        durations.put(description, System.nanoTime() - start);
+    }
+
+    @Override
+    public void testRunFinished(Result result) throws Exception {
+        List<Map.Entry<Description, Long>> sorted = new ArrayList<>(durations.entrySet());
+        sorted.sort(Map.Entry.<Description, Long>comparingByValue(Comparator.reverseOrder()));
+        StringBuilder report = new StringBuilder("class,test,millis\n");
+        for (Map.Entry<Description, Long> entry : sorted) {
+            report.append(entry.getKey().getClassName())
+                    .append(",")
+                    .append(entry.getKey().getMethodName())
+                    .append(",")
+                    .append(toMillis(entry.getValue()))
+                    .append("\n");
+        }
+        String reportPath = System.getProperty("test.timings.report");
+        if (reportPath != null) {
+            FileUtils.writeStringToFile(
+                    new File(reportPath),
+                    report.toString(),
+                    StandardCharsets.UTF_8
+            );
+        }
+        if (ModelTestResources.nbFixtureSetups > 0) {
+            System.out.println(
+                    "Average fixture setup: " +
+                            toMillis(ModelTestResources.fixtureSetupNanos / ModelTestResources.nbFixtureSetups) +
+                            " ms over " + ModelTestResources.nbFixtureSetups + " tests" +
+                            " (fixture.snapshot=" + FixtureSnapshot.isEnabled() + ")"
+            );
+        }
+        System.out.println("Slowest tests:");
+        for (Map.Entry<Description, Long> entry : sorted.subList(0, Math.min(NB_SLOWEST_TO_PRINT, sorted.size()))) {
+            System.out.println(
+                    toMillis(entry.getValue()) + " ms " + entry.getKey().getDisplayName()
+            );
+        }
+    }
+
+    private long toMillis(Long nanos) {
+        return nanos / 1_000_000;
+    }
+}
@@ -0,0 +1,67 @@
+/*
+ * Copyright Vincent Blouin under the GPL License version 3
+ */
+
+package guru.bubl.test.module.utils.metrics;
+
+import guru.bubl.test.module.utils.neo4j.Neo4jQueryListener;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.aopalliance.intercept.MethodInterceptor;
+import org.aopalliance.intercept.MethodInvocation;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/*
+ * Records, per operator method, a latency timer, an error counter and the
+ * number of neo4j queries run by the calling thread during the call.
+ */
+public class OperatorMetricsInterceptor implements MethodInterceptor, Neo4jQueryListener {
+
+    public static final String CALLS = "model.operator.calls";
+    public static final String ERRORS = "model.operator.errors";
+    public static final String ROUND_TRIPS = "model.operator.neo4j.round_trips";
+
+    private static final ThreadLocal<long[]> roundTrips = ThreadLocal.withInitial(() -> new long[1]);
+
+    private final MeterRegistry registry;
+
+    public OperatorMetricsInterceptor(MeterRegistry registry) {
+        this.registry = registry;
+    }
+
+    @Override
+    public Object invoke(MethodInvocation invocation) throws Throwable {
+        String operator = OperatorMetricsModule.operatorName(invocation.getThis().getClass());
+        String method = invocation.getMethod().getName();
+        long roundTripsBefore = roundTrips.get()[0];
+        long start = System.nanoTime();
+        try {
+            return invocation.proceed();
+        } catch (Throwable error) {
+            registry.counter(
+                    ERRORS,
+                    "operator", operator,
+                    "method", method,
+                    "exception", error.getClass().getSimpleName()
+            ).increment();
+            throw error;
+        } finally {
+            Timer.builder(CALLS)
+                    .tags("operator", operator, "method", method)
+                    .register(registry)
+                    .record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            DistributionSummary.builder(ROUND_TRIPS)
+                    .tags("operator", operator, "method", method)
+                    .register(registry)
+                    .record(roundTrips.get()[0] - roundTripsBefore);
+        }
+    }
+
+    @Override
+    public void queryExecuted(String query, Map<String, Object> parameters, Long nanos) {
+        roundTrips.get()[0]++;
+    }
+}
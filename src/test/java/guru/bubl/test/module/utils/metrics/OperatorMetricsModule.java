@@ -0,0 +1,112 @@
+/*
+ * Copyright Vincent Blouin under the GPL License version 3
+ */
+
+package guru.bubl.test.module.utils.metrics;
+
+import com.google.inject.AbstractModule;
+import com.google.inject.matcher.AbstractMatcher;
+import com.google.inject.matcher.Matcher;
+import com.google.inject.matcher.Matchers;
+import guru.bubl.module.model.admin.WholeGraphAdmin;
+import guru.bubl.module.model.center_graph_element.CenterGraphElementOperator;
+import guru.bubl.module.model.center_graph_element.CenteredGraphElementsOperator;
+import guru.bubl.module.model.friend.FriendManager;
+import guru.bubl.module.model.graph.group_relation.GroupRelationOperator;
+import guru.bubl.module.model.graph.relation.RelationOperator;
+import guru.bubl.module.model.graph.subgraph.UserGraph;
+import guru.bubl.module.model.graph.tag.TagOperator;
+import guru.bubl.module.model.graph.tree_copier.TreeCopier;
+import guru.bubl.module.model.graph.vertex.VertexOperator;
+import guru.bubl.module.model.notification.NotificationOperator;
+import guru.bubl.test.module.utils.neo4j.Neo4jQueryListener;
+import io.micrometer.core.instrument.MeterRegistry;
+
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/*
+ * Times every public method of the model operators, whatever module binds
+ * their implementation. An implementation is matched on the model
+ * interfaces it implements, and the simple name of that interface is used
+ * as the operator tag.
+ */
+public class OperatorMetricsModule extends AbstractModule {
+
+    public static final List<Class<?>> OPERATOR_INTERFACES = Arrays.asList(
+            VertexOperator.class,
+            RelationOperator.class,
+            TagOperator.class,
+            GroupRelationOperator.class,
+            UserGraph.class,
+            TreeCopier.class,
+            WholeGraphAdmin.class,
+            NotificationOperator.class,
+            FriendManager.class,
+            CenterGraphElementOperator.class,
+            CenteredGraphElementsOperator.class
+    );
+
+    private static final Map<Class<?>, String> operatorNames = new ConcurrentHashMap<>();
+
+    private final MeterRegistry registry;
+    private final OperatorMetricsInterceptor interceptor;
+
+    public OperatorMetricsModule(MeterRegistry registry) {
+        this.registry = registry;
+        this.interceptor = new OperatorMetricsInterceptor(registry);
+    }
+
+    public Neo4jQueryListener roundTripCounter() {
+        return interceptor;
+    }
+
+    @Override
+    protected void configure() {
+        bind(MeterRegistry.class).toInstance(registry);
+        bindInterceptor(
+                implementationOfAnOperator(),
+                publicOperatorMethod(),
+                interceptor
+        );
+    }
+
+    public static String operatorName(Class<?> implementation) {
+        return operatorNames.computeIfAbsent(implementation, type -> {
+            for (Class<?> operatorInterface : OPERATOR_INTERFACES) {
+                if (operatorInterface.isAssignableFrom(type)) {
+                    return operatorInterface.getSimpleName();
+                }
+            }
+            return "unknown";
+        });
+    }
+
+    private Matcher<Class> implementationOfAnOperator() {
+        Matcher<Class> anOperator = Matchers.subclassesOf(OPERATOR_INTERFACES.get(0));
+        for (Class<?> operatorInterface : OPERATOR_INTERFACES.subList(1, OPERATOR_INTERFACES.size())) {
+            anOperator = anOperator.or(Matchers.subclassesOf(operatorInterface));
+        }
+        return anOperator.and(new AbstractMatcher<Class>() {
+            @Override
+            public boolean matches(Class type) {
+                return !type.isInterface();
+            }
+        });
+    }
+
+    private Matcher<Method> publicOperatorMethod() {
+        return new AbstractMatcher<Method>() {
+            @Override
+            public boolean matches(Method method) {
+                return Modifier.isPublic(method.getModifiers()) &&
+                        !method.isSynthetic() &&
+                        method.getDeclaringClass() != Object.class;
+            }
+        };
+    }
+}
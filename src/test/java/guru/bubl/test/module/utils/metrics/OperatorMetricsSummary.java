@@ -0,0 +1,50 @@
+/*
+ * Copyright Vincent Blouin under the GPL License version 3
+ */
+
+package guru.bubl.test.module.utils.metrics;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+public class OperatorMetricsSummary {
+
+    public static String of(MeterRegistry registry) {
+        List<Timer> timers = new ArrayList<>(registry.find(OperatorMetricsInterceptor.CALLS).timers());
+        timers.sort(Comparator.comparingDouble(
+                (Timer timer) -> timer.totalTime(TimeUnit.MILLISECONDS)
+        ).reversed());
+        StringBuilder summary = new StringBuilder(String.format(
+                "%-55s %8s %10s %10s %10s %8s %10s%n",
+                "operation", "calls", "total ms", "mean ms", "max ms", "errors", "queries"
+        ));
+        for (Timer timer : timers) {
+            String operator = timer.getId().getTag("operator");
+            String method = timer.getId().getTag("method");
+            DistributionSummary roundTrips = registry.find(OperatorMetricsInterceptor.ROUND_TRIPS)
+                    .tags("operator", operator, "method", method)
+                    .summary();
+            Double errors = registry.find(OperatorMetricsInterceptor.ERRORS)
+                    .tags("operator", operator, "method", method)
+                    .counters().stream().mapToDouble(Counter::count).sum();
+            summary.append(String.format(
+                    "%-55s %8d %10.1f %10.2f %10.2f %8.0f %10.2f%n",
+                    operator + "." + method,
+                    timer.count(),
+                    timer.totalTime(TimeUnit.MILLISECONDS),
+                    timer.mean(TimeUnit.MILLISECONDS),
+                    timer.max(TimeUnit.MILLISECONDS),
+                    errors,
+                    roundTrips == null ? 0 : roundTrips.mean()
+            ));
+        }
+        return summary.toString();
+    }
+}
@@ -0,0 +1,293 @@
+/*
+ * Copyright Vincent Blouin under the GPL License version 3
+ */
+
+package guru.bubl.test.module.utils.neo4j;
+
+import guru.bubl.test.module.utils.synthetic.SyntheticGraph;
+import guru.bubl.test.module.utils.synthetic.SyntheticGraphGenerator;
+import guru.bubl.test.module.utils.synthetic.SyntheticParameters;
+import org.apache.commons.io.FileUtils;
+import org.codehaus.jettison.json.JSONArray;
+import org.codehaus.jettison.json.JSONException;
+import org.codehaus.jettison.json.JSONObject;
+import org.neo4j.driver.Driver;
+import org.neo4j.driver.Session;
+import org.neo4j.driver.Transaction;
+import org.neo4j.driver.summary.ProfiledPlan;
+import org.neo4j.driver.summary.ResultSummary;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.regex.Pattern;
+
+/*
+ * Remembers every distinct query run through the intercepted driver with
+ * the parameters of its first execution. profileAll() then runs each one
+ * with PROFILE on the synthetic graph, its parameters rewritten to point
+ * to synthetic entities, in a transaction that is rolled back. The db
+ * hits, rows and plan operators are compared to a committed baseline.
+ * Schema statements can't be profiled in such a transaction and are
+ * listed apart.
+ */
+public class CypherProfiler implements Neo4jQueryListener {
+
+    private static final Set<String> SCAN_OPERATORS = new HashSet<>(Arrays.asList(
+            "AllNodesScan",
+            "NodeByLabelScan"
+    ));
+
+    private static final Long DB_HITS_SLACK = 50L;
+
+    private static final Pattern SCHEMA_STATEMENT = Pattern.compile(
+            "^((CREATE|DROP) (INDEX|CONSTRAINT)|CALL db\\.(index\\.fulltext\\.(create|drop)|awaitIndex|createIndex|createUniquePropertyConstraint))",
+            Pattern.CASE_INSENSITIVE
+    );
+
+    private final Map<String, Map<String, Object>> queries = new ConcurrentHashMap<>();
+    private final Map<String, String> replayErrors = new TreeMap<>();
+    private final Set<String> schemaStatements = new TreeSet<>();
+    private volatile Boolean recording = true;
+
+    public static Boolean isEnabled() {
+        return Boolean.getBoolean("cypher.profile");
+    }
+
+    @Override
+    public void queryExecuted(String query, Map<String, Object> parameters, Long nanos) {
+        String normalized = normalize(query);
+        if (!recording || normalized.startsWith("PROFILE") || normalized.startsWith("EXPLAIN")) {
+            return;
+        }
+        queries.putIfAbsent(normalized, parameters);
+    }
+
+    public void stopRecording() {
+        recording = false;
+    }
+
+    /*
+     * Replaces the fixtures by the standard synthetic graph, profiles the
+     * captured queries on it and fails when one of them got more expensive
+     * than in the baseline, when one can't be replayed or when there is no
+     * baseline. The baseline is only written with cypher.profile.record.
+     */
+    public void check(Driver driver, SyntheticGraphGenerator generator, File baselineFile) throws IOException, JSONException {
+        stopRecording();
+        try (Session session = driver.session()) {
+            session.run("MATCH (n:Resource) DETACH DELETE n");
+            session.run("MATCH (n:Notification) DETACH DELETE n");
+        }
+        SyntheticGraph graph = generator.generate();
+        SyntheticParameters syntheticParameters = new SyntheticParameters(graph);
+        Map<String, QueryProfile> profiles = profileAll(
+                driver,
+                syntheticParameters
+        );
+        System.out.println("profiled " + profiles.size() + " queries on " + graph);
+        printAll("schema statements not profiled", schemaStatements);
+        printAll("parameters left unmapped on the synthetic graph", syntheticParameters.getUnmapped());
+        List<String> failures = new ArrayList<>();
+        replayErrors.forEach((query, error) -> failures.add(
+                "could not profile " + query + " : " + error
+        ));
+        if (Boolean.getBoolean("cypher.profile.record")) {
+            writeBaseline(profiles, baselineFile);
+            System.out.println(
+                    "wrote the profile of " + profiles.size() + " queries to " + baselineFile.getAbsolutePath()
+            );
+        } else if (!baselineFile.exists()) {
+            failures.add(
+                    "no baseline at " + baselineFile.getAbsolutePath() + ", record one with -Dcypher.profile.record=true"
+            );
+        } else {
+            Map<String, QueryProfile> baseline = readBaseline(baselineFile);
+            printAll("queries not in the baseline", notInBaseline(profiles, baseline));
+            printAll("baseline queries not profiled in this run", notProfiledAnymore(profiles, baseline));
+            failures.addAll(regressions(
+                    profiles,
+                    baseline,
+                    Double.parseDouble(System.getProperty("cypher.profile.threshold", "0.2"))
+            ));
+        }
+        failures.forEach(System.out::println);
+        if (!failures.isEmpty()) {
+            throw new AssertionError(
+                    failures.size() + " query profile failures against " + baselineFile.getAbsolutePath()
+            );
+        }
+    }
+
+    public Map<String, QueryProfile> profileAll(Driver driver, SyntheticParameters syntheticParameters) {
+        Map<String, QueryProfile> profiles = new TreeMap<>();
+        replayErrors.clear();
+        schemaStatements.clear();
+        syntheticParameters.learn(queries.values());
+        try (Session session = driver.session()) {
+            for (Map.Entry<String, Map<String, Object>> query : new TreeMap<>(queries).entrySet()) {
+                if (SCHEMA_STATEMENT.matcher(query.getKey()).find()) {
+                    schemaStatements.add(query.getKey());
+                    continue;
+                }
+                try (Transaction tx = session.beginTransaction()) {
+                    ResultSummary summary = tx.run(
+                            "PROFILE " + query.getKey(),
+                            syntheticParameters.map(query.getKey(), query.getValue())
+                    ).consume();
+                    if (summary.hasProfile()) {
+                        profiles.put(
+                                query.getKey(),
+                                QueryProfile.of(summary.profile())
+                        );
+                    } else {
+                        replayErrors.put(query.getKey(), "no profile returned");
+                    }
+                    tx.rollback();
+                } catch (Exception e) {
+                    replayErrors.put(query.getKey(), String.valueOf(e.getMessage()));
+                }
+            }
+        }
+        return profiles;
+    }
+
+    public Map<String, String> getReplayErrors() {
+        return replayErrors;
+    }
+
+    public Set<String> getSchemaStatements() {
+        return schemaStatements;
+    }
+
+    public static Set<String> notInBaseline(Map<String, QueryProfile> profiles, Map<String, QueryProfile> baseline) {
+        Set<String> queries = new TreeSet<>(profiles.keySet());
+        queries.removeAll(baseline.keySet());
+        return queries;
+    }
+
+    public static Set<String> notProfiledAnymore(Map<String, QueryProfile> profiles, Map<String, QueryProfile> baseline) {
+        Set<String> queries = new TreeSet<>(baseline.keySet());
+        queries.removeAll(profiles.keySet());
+        return queries;
+    }
+
+    public static List<String> regressions(Map<String, QueryProfile> profiles, Map<String, QueryProfile> baseline, Double threshold) {
+        List<String> regressions = new ArrayList<>();
+        profiles.forEach((query, profile) -> {
+            QueryProfile expected = baseline.get(query);
+            if (expected == null) {
+                return;
+            }
+            if (profile.dbHits > expected.dbHits * (1 + threshold) + DB_HITS_SLACK) {
+                regressions.add(
+                        "db hits went from " + expected.dbHits + " to " + profile.dbHits + " for " + query
+                );
+            }
+            for (String operator : profile.operators) {
+                if (SCAN_OPERATORS.contains(operator) && !expected.operators.contains(operator)) {
+                    regressions.add(
+                            "new " + operator + " for " + query
+                    );
+                }
+            }
+        });
+        return regressions;
+    }
+
+    public static Map<String, QueryProfile> readBaseline(File file) throws IOException, JSONException {
+        Map<String, QueryProfile> baseline = new TreeMap<>();
+        JSONObject json = new JSONObject(
+                FileUtils.readFileToString(file, StandardCharsets.UTF_8)
+        );
+        Iterator<?> queries = json.keys();
+        while (queries.hasNext()) {
+            String query = (String) queries.next();
+            baseline.put(
+                    query,
+                    QueryProfile.fromJson(json.getJSONObject(query))
+            );
+        }
+        return baseline;
+    }
+
+    public static void writeBaseline(Map<String, QueryProfile> profiles, File file) throws IOException, JSONException {
+        JSONObject json = new JSONObject();
+        for (Map.Entry<String, QueryProfile> profile : profiles.entrySet()) {
+            json.put(
+                    profile.getKey(),
+                    profile.getValue().toJson()
+            );
+        }
+        FileUtils.writeStringToFile(
+                file,
+                json.toString(2),
+                StandardCharsets.UTF_8
+        );
+    }
+
+    private static void printAll(String title, Collection<String> lines) {
+        if (lines.isEmpty()) {
+            return;
+        }
+        System.out.println(lines.size() + " " + title + ":");
+        lines.forEach(line -> System.out.println("  " + line));
+    }
+
+    private String normalize(String query) {
+        return query.trim().replaceAll("\\s+", " ");
+    }
+
+    public static class QueryProfile {
+        private final Long dbHits;
+        private final Long rows;
+        private final Set<String> operators;
+
+        public QueryProfile(Long dbHits, Long rows, Set<String> operators) {
+            this.dbHits = dbHits;
+            this.rows = rows;
+            this.operators = operators;
+        }
+
+        public static QueryProfile of(ProfiledPlan plan) {
+            Set<String> operators = new TreeSet<>();
+            Long dbHits = collect(plan, operators);
+            return new QueryProfile(dbHits, plan.records(), operators);
+        }
+
+        private static Long collect(ProfiledPlan plan, Set<String> operators) {
+            operators.add(plan.operatorType().split("@")[0]);
+            Long dbHits = plan.dbHits();
+            for (ProfiledPlan child : plan.children()) {
+                dbHits += collect(child, operators);
+            }
+            return dbHits;
+        }
+
+        private static QueryProfile fromJson(JSONObject json) throws JSONException {
+            Set<String> operators = new TreeSet<>();
+            JSONArray operatorsJson = json.getJSONArray("operators");
+            for (int i = 0; i < operatorsJson.length(); i++) {
+                operators.add(operatorsJson.getString(i));
+            }
+            return new QueryProfile(
+                    json.getLong("dbHits"),
+                    json.getLong("rows"),
+                    operators
+            );
+        }
+
+        private JSONObject toJson() throws JSONException {
+            return new JSONObject()
+                    .put("dbHits", dbHits)
+                    .put("rows", rows)
+                    .put("operators", new JSONArray(operators));
+        }
+
+        public Long getDbHits() {
+            return dbHits;
+        }
+    }
+}
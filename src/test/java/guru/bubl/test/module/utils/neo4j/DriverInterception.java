@@ -0,0 +1,135 @@
+/*
+ * Copyright Vincent Blouin under the GPL License version 3
+ */
+
+package guru.bubl.test.module.utils.neo4j;
+
+import com.google.inject.*;
+import com.google.inject.binder.ScopedBindingBuilder;
+import com.google.inject.name.Names;
+import com.google.inject.spi.*;
+import org.neo4j.driver.Driver;
+
+import java.lang.annotation.Annotation;
+import java.util.Arrays;
+import java.util.List;
+import java.util.logging.Logger;
+
+/*
+ * Re-applies the elements of the neo4j modules, but moves their Driver
+ * binding to a private key and binds Driver to an InterceptedDriver
+ * around it. Everything built by those modules then gets the intercepted
+ * driver, without having to know how the modules create it.
+ */
+public class DriverInterception extends AbstractModule {
+
+    private static final Logger logger = Logger.getLogger(DriverInterception.class.getName());
+
+    private static final Key<Driver> DRIVER = Key.get(Driver.class);
+    private static final Key<Driver> UNINTERCEPTED_DRIVER = Key.get(
+            Driver.class,
+            Names.named("unintercepted")
+    );
+
+    private final Module neo4jModule;
+    private final List<Neo4jQueryListener> listeners;
+
+    public static Module around(Module neo4jModule, Neo4jQueryListener... listeners) {
+        return new DriverInterception(
+                neo4jModule,
+                Arrays.asList(listeners)
+        );
+    }
+
+    private DriverInterception(Module neo4jModule, List<Neo4jQueryListener> listeners) {
+        this.neo4jModule = neo4jModule;
+        this.listeners = listeners;
+    }
+
+    @Override
+    protected void configure() {
+        Boolean driverFound = false;
+        for (Element element : Elements.getElements(neo4jModule)) {
+            if (element instanceof Binding && ((Binding<?>) element).getKey().equals(DRIVER)) {
+                @SuppressWarnings("unchecked")
+                Binding<Driver> driverBinding = (Binding<Driver>) element;
+                driverFound = rebindAsUnintercepted(driverBinding);
+            } else {
+                element.applyTo(binder());
+            }
+        }
+        if (!driverFound) {
+            logger.warning("No Driver binding found, neo4j queries will not be intercepted");
+            return;
+        }
+        bind(DRIVER).toProvider(new Provider<Driver>() {
+            @Inject
+            @com.google.inject.name.Named("unintercepted")
+            Provider<Driver> unintercepted;
+
+            @Override
+            public Driver get() {
+                return InterceptedDriver.wrap(
+                        unintercepted.get(),
+                        listeners
+                );
+            }
+        }).in(Singleton.class);
+    }
+
+    private Boolean rebindAsUnintercepted(Binding<Driver> driverBinding) {
+        ScopedBindingBuilder builder = driverBinding.acceptTargetVisitor(
+                new DefaultBindingTargetVisitor<Driver, ScopedBindingBuilder>() {
+                    @Override
+                    public ScopedBindingBuilder visit(InstanceBinding<? extends Driver> binding) {
+                        bind(UNINTERCEPTED_DRIVER).toInstance(binding.getInstance());
+                        return null;
+                    }
+
+                    @Override
+                    public ScopedBindingBuilder visit(ProviderInstanceBinding<? extends Driver> binding) {
+                        return bind(UNINTERCEPTED_DRIVER).toProvider(binding.getUserSuppliedProvider());
+                    }
+
+                    @Override
+                    public ScopedBindingBuilder visit(ProviderKeyBinding<? extends Driver> binding) {
+                        return bind(UNINTERCEPTED_DRIVER).toProvider(binding.getProviderKey());
+                    }
+
+                    @Override
+                    public ScopedBindingBuilder visit(LinkedKeyBinding<? extends Driver> binding) {
+                        return bind(UNINTERCEPTED_DRIVER).to(binding.getLinkedKey());
+                    }
+
+                    @Override
+                    protected ScopedBindingBuilder visitOther(Binding<? extends Driver> binding) {
+                        throw new IllegalStateException(
+                                "Unsupported Driver binding " + binding
+                        );
+                    }
+                }
+        );
+        if (builder != null) {
+            driverBinding.acceptScopingVisitor(new DefaultBindingScopingVisitor<Void>() {
+                @Override
+                public Void visitEagerSingleton() {
+                    builder.asEagerSingleton();
+                    return null;
+                }
+
+                @Override
+                public Void visitScope(Scope scope) {
+                    builder.in(scope);
+                    return null;
+                }
+
+                @Override
+                public Void visitScopeAnnotation(Class<? extends Annotation> scopeAnnotation) {
+                    builder.in(scopeAnnotation);
+                    return null;
+                }
+            });
+        }
+        return true;
+    }
+}
@@ -0,0 +1,147 @@
+/*
+ * Copyright Vincent Blouin under the GPL License version 3
+ */
+
+package guru.bubl.test.module.utils.neo4j;
+
+import org.neo4j.driver.*;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+/*
+ * Proxies a Driver so that every run() on its sessions and transactions,
+ * including those of readTransaction and writeTransaction work, is
+ * reported to the listeners. The returned results are tracked too, and
+ * each one is reported again once consumed, at the latest when the next
+ * query runs on its session or transaction, or when they end. Async and
+ * reactive sessions are not proxied.
+ */
+public class InterceptedDriver implements InvocationHandler {
+
+    private final Object target;
+    private final List<Neo4jQueryListener> listeners;
+    private final List<TrackedResult> pendingResults = new ArrayList<>();
+
+    public static Driver wrap(Driver driver, List<Neo4jQueryListener> listeners) {
+        return proxy(Driver.class, new InterceptedDriver(driver, listeners));
+    }
+
+    static <T> T proxy(Class<T> type, InvocationHandler handler) {
+        return type.cast(Proxy.newProxyInstance(
+                type.getClassLoader(),
+                new Class[]{type},
+                handler
+        ));
+    }
+
+    private InterceptedDriver(Object target, List<Neo4jQueryListener> listeners) {
+        this.target = target;
+        this.listeners = listeners;
+    }
+
+    @Override
+    public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+        if (isTransactionFunction(method, args)) {
+            TransactionWork<?> work = (TransactionWork<?>) args[0];
+            args[0] = (TransactionWork<Object>) tx -> {
+                InterceptedDriver handler = new InterceptedDriver(tx, listeners);
+                try {
+                    return work.execute(
+                            proxy(Transaction.class, handler)
+                    );
+                } finally {
+                    handler.completePendingResults();
+                }
+            };
+        }
+        Boolean isRun = method.getName().equals("run") && args != null && args.length > 0;
+        if (isRun) {
+            completePendingResults();
+        }
+        Long start = System.nanoTime();
+        Object result;
+        try {
+            result = method.invoke(target, args);
+        } catch (InvocationTargetException e) {
+            throw e.getCause();
+        } finally {
+            if (isEnd(method)) {
+                completePendingResults();
+            }
+        }
+        if (isRun) {
+            Long nanos = System.nanoTime() - start;
+            String query = queryText(args[0]);
+            Map<String, Object> parameters = parameters(args);
+            for (Neo4jQueryListener listener : listeners) {
+                listener.queryExecuted(query, parameters, nanos);
+            }
+            if (result instanceof Result) {
+                TrackedResult tracked = new TrackedResult(
+                        (Result) result, query, parameters, start, listeners
+                );
+                pendingResults.add(tracked);
+                return proxy(Result.class, tracked);
+            }
+        }
+        if (result instanceof Session) {
+            return proxy(Session.class, new InterceptedDriver(result, listeners));
+        }
+        if (result instanceof Transaction) {
+            return proxy(Transaction.class, new InterceptedDriver(result, listeners));
+        }
+        return result;
+    }
+
+    private Boolean isEnd(Method method) {
+        return !(target instanceof Driver) && (
+                method.getName().equals("close") ||
+                        method.getName().equals("commit") ||
+                        method.getName().equals("rollback")
+        );
+    }
+
+    private void completePendingResults() {
+        for (TrackedResult result : pendingResults) {
+            result.complete();
+        }
+        pendingResults.clear();
+    }
+
+    private Boolean isTransactionFunction(Method method, Object[] args) {
+        return (method.getName().equals("readTransaction") || method.getName().equals("writeTransaction")) &&
+                args != null && args.length > 0 && args[0] instanceof TransactionWork;
+    }
+
+    private String queryText(Object query) {
+        return query instanceof Query ? ((Query) query).text() : String.valueOf(query);
+    }
+
+    private Map<String, Object> parameters(Object[] args) {
+        if (args[0] instanceof Query) {
+            return ((Query) args[0]).parameters().asMap();
+        }
+        if (args.length < 2) {
+            return Collections.emptyMap();
+        }
+        if (args[1] instanceof Value) {
+            return ((Value) args[1]).asMap();
+        }
+        if (args[1] instanceof Record) {
+            return ((Record) args[1]).asMap();
+        }
+        if (args[1] instanceof Map) {
+            @SuppressWarnings("unchecked")
+            Map<String, Object> parameters = (Map<String, Object>) args[1];
+            return parameters;
+        }
+        return Collections.emptyMap();
+    }
+}
@@ -0,0 +1,14 @@
+/*
+ * Copyright Vincent Blouin under the GPL License version 3
+ */
+
+package guru.bubl.test.module.utils.neo4j;
+
+import java.util.Map;
+
+public interface Neo4jQueryListener {
+    void queryExecuted(String query, Map<String, Object> parameters, Long nanos);
+
+    default void resultConsumed(String query, Map<String, Object> parameters, Long nanos, Long nbRecords) {
+    }
+}
@@ -0,0 +1,175 @@
+/*
+ * Copyright Vincent Blouin under the GPL License version 3
+ */
+
+package guru.bubl.test.module.utils.neo4j;
+
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+
+/*
+ * Keeps the last slow queries in a ring buffer, with their parameter
+ * values redacted, the model method that ran them and their number of
+ * records. Bound in the injector so that it can be read, cleared or
+ * re-tuned while debugging, without neo4j's own query log.
+ * -Dslow.query.millis=-1 turns it off and leaves the driver unwrapped.
+ */
+public class SlowQueryLog implements Neo4jQueryListener {
+
+    private final SlowQuery[] buffer;
+    private Long nbLogged = 0L;
+    private volatile Long thresholdNanos;
+
+    public static Boolean isEnabled() {
+        return Long.getLong("slow.query.millis", 100L) >= 0;
+    }
+
+    public static SlowQueryLog fromSystemProperties() {
+        return new SlowQueryLog(
+                Math.max(Long.getLong("slow.query.millis", 100L), 0L),
+                Integer.getInteger("slow.query.capacity", 200)
+        );
+    }
+
+    public SlowQueryLog(Long thresholdMillis, Integer capacity) {
+        this.buffer = new SlowQuery[capacity];
+        setThresholdMillis(thresholdMillis);
+    }
+
+    public void setThresholdMillis(Long thresholdMillis) {
+        this.thresholdNanos = TimeUnit.MILLISECONDS.toNanos(thresholdMillis);
+    }
+
+    public Long getThresholdMillis() {
+        return TimeUnit.NANOSECONDS.toMillis(thresholdNanos);
+    }
+
+    @Override
+    public void queryExecuted(String query, Map<String, Object> parameters, Long nanos) {
+    }
+
+    @Override
+    public void resultConsumed(String query, Map<String, Object> parameters, Long nanos, Long nbRecords) {
+        if (nanos < thresholdNanos) {
+            return;
+        }
+        log(new SlowQuery(
+                query,
+                redact(parameters),
+                callingModelMethod(),
+                nbRecords,
+                TimeUnit.NANOSECONDS.toMillis(nanos),
+                new Date()
+        ));
+    }
+
+    public synchronized List<SlowQuery> recent() {
+        List<SlowQuery> recent = new ArrayList<>();
+        for (long i = nbLogged - 1; i >= 0 && i >= nbLogged - buffer.length; i--) {
+            recent.add(buffer[(int) (i % buffer.length)]);
+        }
+        return recent;
+    }
+
+    public synchronized Long getNbLogged() {
+        return nbLogged;
+    }
+
+    public synchronized void clear() {
+        Arrays.fill(buffer, null);
+        nbLogged = 0L;
+    }
+
+    private synchronized void log(SlowQuery slowQuery) {
+        buffer[(int) (nbLogged % buffer.length)] = slowQuery;
+        nbLogged++;
+    }
+
+    @Override
+    public synchronized String toString() {
+        StringBuilder log = new StringBuilder(
+                nbLogged + " queries over " + getThresholdMillis() + " ms\n"
+        );
+        for (SlowQuery slowQuery : recent()) {
+            log.append(slowQuery).append("\n");
+        }
+        return log.toString();
+    }
+
+    private static Map<String, Object> redact(Map<String, Object> parameters) {
+        Map<String, Object> redacted = new TreeMap<>();
+        parameters.forEach((key, value) -> redacted.put(key, redactValue(value)));
+        return redacted;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Object redactValue(Object value) {
+        if (value == null || value instanceof Number || value instanceof Boolean) {
+            return value;
+        }
+        if (value instanceof Map) {
+            return redact((Map<String, Object>) value);
+        }
+        if (value instanceof Collection) {
+            return "<" + ((Collection<?>) value).size() + " items>";
+        }
+        return "<" + value.toString().length() + " chars>";
+    }
+
+    private static String callingModelMethod() {
+        for (StackTraceElement frame : new Throwable().getStackTrace()) {
+            if (frame.getClassName().startsWith("guru.bubl.module")) {
+                String className = frame.getClassName().split("\\$\\$")[0];
+                return className.substring(className.lastIndexOf('.') + 1) + "." + frame.getMethodName();
+            }
+        }
+        return "unknown";
+    }
+
+    public static class SlowQuery {
+        private final String query;
+        private final Map<String, Object> parameters;
+        private final String caller;
+        private final Long nbRecords;
+        private final Long millis;
+        private final Date date;
+
+        private SlowQuery(String query, Map<String, Object> parameters, String caller, Long nbRecords, Long millis, Date date) {
+            this.query = query;
+            this.parameters = parameters;
+            this.caller = caller;
+            this.nbRecords = nbRecords;
+            this.millis = millis;
+            this.date = date;
+        }
+
+        public String getQuery() {
+            return query;
+        }
+
+        public Map<String, Object> getParameters() {
+            return parameters;
+        }
+
+        public String getCaller() {
+            return caller;
+        }
+
+        public Long getNbRecords() {
+            return nbRecords;
+        }
+
+        public Long getMillis() {
+            return millis;
+        }
+
+        public Date getDate() {
+            return date;
+        }
+
+        @Override
+        public String toString() {
+            return millis + " ms, " + nbRecords + " records, " + caller + " " + parameters + " " + query;
+        }
+    }
+}
@@ -0,0 +1,128 @@
+/*
+ * Copyright Vincent Blouin under the GPL License version 3
+ */
+
+package guru.bubl.test.module.utils.neo4j;
+
+import org.neo4j.driver.Record;
+import org.neo4j.driver.Result;
+import org.neo4j.driver.summary.ResultSummary;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+
+/*
+ * Counts the records read from a Result and reports it to the listeners
+ * the first time it is known to be consumed. Once exhausted, its duration
+ * is the server side one from its summary. A result left unread is
+ * completed when the next query runs on its session or transaction, or
+ * when they end, and timed by the wall clock up to that point.
+ */
+class TrackedResult implements InvocationHandler {
+
+    private final Result target;
+    private final String query;
+    private final Map<String, Object> parameters;
+    private final Long start;
+    private final List<Neo4jQueryListener> listeners;
+
+    private Long nbRecords = 0L;
+    private Boolean completed = false;
+
+    TrackedResult(Result target, String query, Map<String, Object> parameters, Long start, List<Neo4jQueryListener> listeners) {
+        this.target = target;
+        this.query = query;
+        this.parameters = parameters;
+        this.start = start;
+        this.listeners = listeners;
+    }
+
+    @Override
+    public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+        if (method.getName().equals("forEachRemaining") && args != null && args[0] instanceof Consumer) {
+            @SuppressWarnings("unchecked")
+            Consumer<Record> action = (Consumer<Record>) args[0];
+            args[0] = (Consumer<Record>) record -> {
+                nbRecords++;
+                action.accept(record);
+            };
+        }
+        Object result;
+        try {
+            result = method.invoke(target, args);
+        } catch (InvocationTargetException e) {
+            complete();
+            throw e.getCause();
+        }
+        switch (method.getName()) {
+            case "next":
+                nbRecords++;
+                break;
+            case "hasNext":
+                if (!(Boolean) result) {
+                    completeExhausted();
+                }
+                break;
+            case "single":
+                nbRecords++;
+                completeExhausted();
+                break;
+            case "list":
+                nbRecords += ((List<?>) result).size();
+                completeExhausted();
+                break;
+            case "stream":
+                @SuppressWarnings("unchecked")
+                Stream<Record> stream = (Stream<Record>) result;
+                return stream.peek(record -> nbRecords++);
+            case "forEachRemaining":
+                completeExhausted();
+                break;
+            case "consume":
+                completeWith((ResultSummary) result);
+                break;
+        }
+        return result;
+    }
+
+    void complete() {
+        complete(System.nanoTime() - start);
+    }
+
+    private void completeExhausted() {
+        if (completed) {
+            return;
+        }
+        try {
+            completeWith(target.consume());
+        } catch (RuntimeException e) {
+            complete();
+        }
+    }
+
+    private void completeWith(ResultSummary summary) {
+        Long availableAfter = summary.resultAvailableAfter(TimeUnit.NANOSECONDS);
+        Long consumedAfter = summary.resultConsumedAfter(TimeUnit.NANOSECONDS);
+        if (availableAfter < 0 || consumedAfter < 0) {
+            complete();
+            return;
+        }
+        complete(availableAfter + consumedAfter);
+    }
+
+    private void complete(Long nanos) {
+        if (completed) {
+            return;
+        }
+        completed = true;
+        for (Neo4jQueryListener listener : listeners) {
+            listener.resultConsumed(query, parameters, nanos, nbRecords);
+        }
+    }
+}
@@ -0,0 +1,80 @@
+/*
+ * Copyright Vincent Blouin under the GPL License version 3
+ */
+
+package guru.bubl.test.module.utils.synthetic;
+
+import guru.bubl.module.model.User;
+
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+public class SyntheticGraph {
+
+    private final List<User> users = new ArrayList<>();
+    private final List<URI> centerUris = new ArrayList<>();
+    private final List<URI> vertexUris = new ArrayList<>();
+    private final List<URI> relationUris = new ArrayList<>();
+    private final List<URI> groupRelationUris = new ArrayList<>();
+    private final List<URI> patternUris = new ArrayList<>();
+    private final List<URI> tagUris = new ArrayList<>();
+    private final Map<URI, User> owners = new HashMap<>();
+
+    public List<User> getUsers() {
+        return users;
+    }
+
+    public List<URI> getCenterUris() {
+        return centerUris;
+    }
+
+    public List<URI> getVertexUris() {
+        return vertexUris;
+    }
+
+    public List<URI> getRelationUris() {
+        return relationUris;
+    }
+
+    public List<URI> getGroupRelationUris() {
+        return groupRelationUris;
+    }
+
+    public List<URI> getPatternUris() {
+        return patternUris;
+    }
+
+    public List<URI> getTagUris() {
+        return tagUris;
+    }
+
+    public User ownerOf(URI vertexUri) {
+        return owners.get(vertexUri);
+    }
+
+    public void addVertexOfOwner(URI vertexUri, User owner) {
+        vertexUris.add(vertexUri);
+        owners.put(vertexUri, owner);
+    }
+
+    public Integer numberOfVertices() {
+        return vertexUris.size();
+    }
+
+    public Integer numberOfRelations() {
+        return relationUris.size();
+    }
+
+    @Override
+    public String toString() {
+        return users.size() + " users, " +
+                vertexUris.size() + " vertices, " +
+                relationUris.size() + " relations, " +
+                groupRelationUris.size() + " group relations, " +
+                patternUris.size() + " patterns, " +
+                tagUris.size() + " tags";
+    }
+}
@@ -0,0 +1,276 @@
+/*
+ * Copyright Vincent Blouin under the GPL License version 3
+ */
+
+package guru.bubl.test.module.utils.synthetic;
+
+import guru.bubl.module.model.User;
+import guru.bubl.module.model.center_graph_element.CenterGraphElementOperatorFactory;
+import guru.bubl.module.model.friend.FriendManagerFactory;
+import guru.bubl.module.model.graph.ShareLevel;
+import guru.bubl.module.model.graph.relation.Relation;
+import guru.bubl.module.model.graph.relation.RelationFactory;
+import guru.bubl.module.model.graph.relation.RelationOperator;
+import guru.bubl.module.model.graph.tag.TagPojo;
+import guru.bubl.module.model.graph.vertex.VertexFactory;
+import guru.bubl.module.model.graph.vertex.VertexOperator;
+import guru.bubl.module.repository.user.UserRepository;
+
+import javax.inject.Inject;
+import java.net.URI;
+import java.util.*;
+
+/*
+ * Builds seeded, reproducible mind maps through the model operators.
+ * The number of children of a bubble follows a power law, so most bubbles
+ * are leaves and a few are hubs. A new tree is started whenever the
+ * current one stops growing before the user's quota of bubbles is met.
+ *
+ * A seed reproduces the structure, labels, share levels, tags, group
+ * relations, patterns and friendships, not the uris. Vertex and relation
+ * uris are still generated by the model, and the centers have no way to
+ * get a chosen one.
+ *
+ * Get an instance from the injector, configure it and call generate().
+ */
+public class SyntheticGraphGenerator {
+
+    private static final String[] WORDS = {
+            "apple", "river", "book", "project", "music", "travel", "health", "garden",
+            "science", "history", "recipe", "idea", "meeting", "family", "sport", "film",
+            "language", "code", "budget", "house", "friend", "city", "school", "animal",
+            "planet", "art", "event", "todo", "question", "research"
+    };
+
+    @Inject
+    private UserRepository userRepository;
+
+    @Inject
+    private VertexFactory vertexFactory;
+
+    @Inject
+    private RelationFactory relationFactory;
+
+    @Inject
+    private FriendManagerFactory friendManagerFactory;
+
+    @Inject
+    private CenterGraphElementOperatorFactory centerGraphElementOperatorFactory;
+
+    private Long seed = 42L;
+    private Integer nbUsers = 10;
+    private Integer nbVerticesPerUser = 100;
+    private Integer maxDepth = 8;
+    private Integer maxChildren = 50;
+    private Double powerLawExponent = 2.2;
+    private Integer nbSharedTags = 20;
+    private Double tagProbability = 0.15;
+    private Double groupRelationProbability = 0.03;
+    private Double patternProbability = 0.1;
+    private Integer nbFriendsPerUser = 3;
+
+    private Random random;
+    private List<TagPojo> sharedTags;
+
+    public SyntheticGraphGenerator withSeed(Long seed) {
+        this.seed = seed;
+        return this;
+    }
+
+    public SyntheticGraphGenerator nbUsers(Integer nbUsers) {
+        this.nbUsers = nbUsers;
+        return this;
+    }
+
+    public SyntheticGraphGenerator nbVerticesPerUser(Integer nbVerticesPerUser) {
+        this.nbVerticesPerUser = nbVerticesPerUser;
+        return this;
+    }
+
+    public SyntheticGraphGenerator maxDepth(Integer maxDepth) {
+        this.maxDepth = maxDepth;
+        return this;
+    }
+
+    public SyntheticGraphGenerator maxChildren(Integer maxChildren) {
+        this.maxChildren = maxChildren;
+        return this;
+    }
+
+    public SyntheticGraphGenerator powerLawExponent(Double powerLawExponent) {
+        this.powerLawExponent = powerLawExponent;
+        return this;
+    }
+
+    public SyntheticGraphGenerator nbSharedTags(Integer nbSharedTags) {
+        this.nbSharedTags = nbSharedTags;
+        return this;
+    }
+
+    public SyntheticGraphGenerator tagProbability(Double tagProbability) {
+        this.tagProbability = tagProbability;
+        return this;
+    }
+
+    public SyntheticGraphGenerator groupRelationProbability(Double groupRelationProbability) {
+        this.groupRelationProbability = groupRelationProbability;
+        return this;
+    }
+
+    public SyntheticGraphGenerator patternProbability(Double patternProbability) {
+        this.patternProbability = patternProbability;
+        return this;
+    }
+
+    public SyntheticGraphGenerator nbFriendsPerUser(Integer nbFriendsPerUser) {
+        this.nbFriendsPerUser = nbFriendsPerUser;
+        return this;
+    }
+
+    public SyntheticGraph generate() {
+        random = new Random(seed);
+        sharedTags = new ArrayList<>();
+        for (int i = 0; i < nbSharedTags; i++) {
+            sharedTags.add(new TagPojo(
+                    URI.create("https://www.wikidata.org/wiki/Q" + (1000 + i))
+            ));
+        }
+        SyntheticGraph graph = new SyntheticGraph();
+        for (int i = 0; i < nbUsers; i++) {
+            graph.getUsers().add(createUser(i));
+        }
+        for (User user : graph.getUsers()) {
+            generateMapsOfUser(user, graph);
+        }
+        createFriendships(graph.getUsers());
+        return graph;
+    }
+
+    private User createUser(Integer index) {
+        return userRepository.createUser(
+                User.withEmail(
+                        "synthetic" + index + "@example.org"
+                ).setUsername("synthetic_" + index).setPreferredLocales("[en]").password("12345678")
+        );
+    }
+
+    private void generateMapsOfUser(User user, SyntheticGraph graph) {
+        Integer nbVertices = 0;
+        while (nbVertices < nbVerticesPerUser) {
+            VertexOperator center = vertexFactory.createForOwner(user.username());
+            center.label(randomLabel(nbVertices));
+            graph.getCenterUris().add(center.uri());
+            graph.addVertexOfOwner(center.uri(), user);
+            decorate(center, graph);
+            centerGraphElementOperatorFactory.usingFriendlyResource(
+                    center
+            ).incrementNumberOfVisits();
+            nbVertices++;
+            Deque<VertexOperator> toExpand = new ArrayDeque<>();
+            Map<URI, Integer> depths = new HashMap<>();
+            toExpand.add(center);
+            depths.put(center.uri(), 0);
+            while (!toExpand.isEmpty() && nbVertices < nbVerticesPerUser) {
+                VertexOperator parent = toExpand.poll();
+                Integer depth = depths.get(parent.uri());
+                Integer nbChildren = depth >= maxDepth ? 0 : nbChildren();
+                for (int i = 0; i < nbChildren && nbVertices < nbVerticesPerUser; i++) {
+                    Relation relation = parent.addVertexAndRelation();
+                    VertexOperator child = vertexFactory.withUri(relation.destinationUri());
+                    child.label(randomLabel(nbVertices));
+                    RelationOperator relationOperator = relationFactory.withUri(relation.uri());
+                    relationOperator.label(WORDS[random.nextInt(WORDS.length)]);
+                    graph.addVertexOfOwner(child.uri(), user);
+                    graph.getRelationUris().add(relation.uri());
+                    decorate(child, graph);
+                    if (random.nextDouble() < groupRelationProbability) {
+                        graph.getGroupRelationUris().add(
+                                relationOperator.convertToGroupRelation(
+                                        new UUID(random.nextLong(), random.nextLong()).toString(),
+                                        ShareLevel.PRIVATE,
+                                        randomLabel(nbVertices),
+                                        ""
+                                ).uri()
+                        );
+                    }
+                    depths.put(child.uri(), depth + 1);
+                    toExpand.add(child);
+                    nbVertices++;
+                }
+            }
+            if (random.nextDouble() < patternProbability) {
+                center.makePattern();
+                graph.getPatternUris().add(center.uri());
+            }
+        }
+    }
+
+    private void decorate(VertexOperator vertex, SyntheticGraph graph) {
+        ShareLevel shareLevel = randomShareLevel();
+        if (shareLevel != ShareLevel.PRIVATE) {
+            vertex.setShareLevel(shareLevel);
+        }
+        if (random.nextDouble() < tagProbability) {
+            for (TagPojo tag : vertex.addTag(
+                    sharedTags.get(random.nextInt(sharedTags.size()))
+            ).values()) {
+                if (!graph.getTagUris().contains(tag.uri())) {
+                    graph.getTagUris().add(tag.uri());
+                }
+            }
+        }
+    }
+
+    private void createFriendships(List<User> users) {
+        if (users.size() < 2) {
+            return;
+        }
+        Set<String> friendships = new HashSet<>();
+        for (User user : users) {
+            for (int i = 0; i < nbFriendsPerUser; i++) {
+                User friend = users.get(random.nextInt(users.size()));
+                if (friend.username().equals(user.username())) {
+                    continue;
+                }
+                String key = user.username().compareTo(friend.username()) < 0 ?
+                        user.username() + friend.username() :
+                        friend.username() + user.username();
+                if (!friendships.add(key)) {
+                    continue;
+                }
+                friendManagerFactory.forUser(user).add(friend);
+                friendManagerFactory.forUser(friend).confirm(user);
+            }
+        }
+    }
+
+    /*
+     * Discrete power law: P(n >= k) = (k + 1) ^ -(exponent - 1)
+     */
+    private Integer nbChildren() {
+        Double nb = Math.floor(
+                Math.pow(1 - random.nextDouble(), -1 / (powerLawExponent - 1))
+        ) - 1;
+        return (int) Math.min(nb, maxChildren);
+    }
+
+    private ShareLevel randomShareLevel() {
+        Double draw = random.nextDouble();
+        if (draw < 0.6) {
+            return ShareLevel.PRIVATE;
+        }
+        if (draw < 0.75) {
+            return ShareLevel.FRIENDS;
+        }
+        if (draw < 0.8) {
+            return ShareLevel.PUBLIC_WITH_LINK;
+        }
+        return ShareLevel.PUBLIC;
+    }
+
+    private String randomLabel(Integer index) {
+        return WORDS[random.nextInt(WORDS.length)] + " " +
+                WORDS[random.nextInt(WORDS.length)] + " " +
+                index;
+    }
+}
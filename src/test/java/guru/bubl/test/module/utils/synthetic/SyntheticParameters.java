@@ -0,0 +1,192 @@
+/*
+ * Copyright Vincent Blouin under the GPL License version 3
+ */
+
+package guru.bubl.test.module.utils.synthetic;
+
+import guru.bubl.module.model.User;
+import guru.bubl.module.model.UserUris;
+
+import java.net.URI;
+import java.util.*;
+import java.util.stream.Collectors;
+
+/*
+ * Rewrites query parameters captured on the test fixtures so that they
+ * point to entities of a SyntheticGraph. Each fixture user is given a
+ * synthetic user, in the order of their usernames, and each fixture uri
+ * a vertex, relation, group relation or tag of that synthetic user. Which
+ * one is derived from the query and the parameter name only, so that a
+ * query gets the same parameters whatever other tests ran before it. The
+ * same fixture uri is mapped to the same entity within a query. Values
+ * that look like uris of a user but can't be mapped are kept and listed
+ * in getUnmapped().
+ */
+public class SyntheticParameters {
+
+    private static final String USERS_PATH = "/service/users/";
+
+    private final SyntheticGraph graph;
+    private final Map<String, String> usernames = new HashMap<>();
+    private final Set<String> unmapped = new TreeSet<>();
+
+    public SyntheticParameters(SyntheticGraph graph) {
+        this.graph = graph;
+    }
+
+    /*
+     * Parameters that only hold a username are recognized from the uris
+     * seen in any query, so every query is learned before one is mapped.
+     */
+    public void learn(Collection<Map<String, Object>> allParameters) {
+        Set<String> fixtureUsernames = new TreeSet<>();
+        for (Map<String, Object> parameters : allParameters) {
+            learnValue(parameters, fixtureUsernames);
+        }
+        fixtureUsernames.forEach(this::syntheticUsername);
+    }
+
+    public Map<String, Object> map(String query, Map<String, Object> parameters) {
+        return mapMap(query, "", parameters, new HashMap<>());
+    }
+
+    public Set<String> getUnmapped() {
+        return unmapped;
+    }
+
+    @SuppressWarnings("unchecked")
+    private void learnValue(Object value, Set<String> fixtureUsernames) {
+        if (value instanceof String) {
+            String owner = ownerInUri((String) value);
+            if (owner != null) {
+                fixtureUsernames.add(owner);
+            }
+        } else if (value instanceof Map) {
+            ((Map<String, Object>) value).values().forEach(
+                    nested -> learnValue(nested, fixtureUsernames)
+            );
+        } else if (value instanceof Collection) {
+            ((Collection<Object>) value).forEach(
+                    nested -> learnValue(nested, fixtureUsernames)
+            );
+        }
+    }
+
+    /*
+     * Keys are visited in order so that, when two parameters of a query
+     * hold the same fixture uri, the same one decides where it maps.
+     */
+    private Map<String, Object> mapMap(String query, String path, Map<String, Object> parameters, Map<String, String> urisOfQuery) {
+        Map<String, Object> mapped = new TreeMap<>();
+        new TreeMap<>(parameters).forEach((key, value) -> mapped.put(
+                key,
+                mapValue(query, path + key, value, urisOfQuery)
+        ));
+        return mapped;
+    }
+
+    @SuppressWarnings("unchecked")
+    private Object mapValue(String query, String path, Object value, Map<String, String> urisOfQuery) {
+        if (value instanceof String) {
+            return mapString(query, path, (String) value, urisOfQuery);
+        }
+        if (value instanceof Map) {
+            return mapMap(query, path + ".", (Map<String, Object>) value, urisOfQuery);
+        }
+        if (value instanceof Collection) {
+            List<Object> mapped = new ArrayList<>();
+            for (Object element : (Collection<Object>) value) {
+                mapped.add(mapValue(query, path + "[" + mapped.size() + "]", element, urisOfQuery));
+            }
+            return mapped;
+        }
+        return value;
+    }
+
+    private String mapString(String query, String path, String value, Map<String, String> urisOfQuery) {
+        if (ownerInUri(value) != null) {
+            return urisOfQuery.computeIfAbsent(
+                    value,
+                    fixtureUri -> syntheticUri(fixtureUri, query + "/" + path)
+            );
+        }
+        return usernames.getOrDefault(value, value);
+    }
+
+    private String syntheticUri(String fixtureUri, String parameter) {
+        String fixtureOwner = ownerInUri(fixtureUri);
+        String owner = syntheticUsername(fixtureOwner);
+        URI uri = URI.create(fixtureUri);
+        List<URI> candidates;
+        if (UserUris.isUriOfAGroupRelation(uri)) {
+            candidates = ownedBy(graph.getGroupRelationUris(), owner);
+        } else if (UserUris.isUriOfATag(uri)) {
+            candidates = ownedBy(graph.getTagUris(), owner);
+        } else if (isVertexUri(uri, fixtureOwner)) {
+            candidates = ownedBy(graph.getVertexUris(), owner);
+        } else if (isEdgeUri(uri, fixtureOwner)) {
+            candidates = ownedBy(graph.getRelationUris(), owner);
+        } else {
+            unmapped.add(fixtureUri);
+            return fixtureUri;
+        }
+        if (candidates.isEmpty()) {
+            unmapped.add(fixtureUri);
+            return fixtureUri;
+        }
+        return candidates.get(
+                Math.floorMod(parameter.hashCode(), candidates.size())
+        ).toString();
+    }
+
+    private String syntheticUsername(String fixtureUsername) {
+        return usernames.computeIfAbsent(fixtureUsername, username -> {
+            List<User> users = graph.getUsers();
+            for (User user : users) {
+                if (user.username().equals(username)) {
+                    return username;
+                }
+            }
+            return users.get(usernames.size() % users.size()).username();
+        });
+    }
+
+    private List<URI> ownedBy(List<URI> candidates, String owner) {
+        return candidates.stream().filter(
+                candidate -> owner.equals(ownerInUri(candidate.toString()))
+        ).collect(Collectors.toList());
+    }
+
+    private Boolean isVertexUri(URI uri, String owner) {
+        try {
+            return new UserUris(owner).vertexUriFromShortId(
+                    UserUris.graphElementShortId(uri)
+            ).equals(uri);
+        } catch (RuntimeException e) {
+            return false;
+        }
+    }
+
+    private Boolean isEdgeUri(URI uri, String owner) {
+        try {
+            return new UserUris(owner).edgeUriFromShortId(
+                    UserUris.graphElementShortId(uri)
+            ).equals(uri);
+        } catch (RuntimeException e) {
+            return false;
+        }
+    }
+
+    private static String ownerInUri(String value) {
+        Integer start = value.indexOf(USERS_PATH);
+        if (start < 0 || value.contains(" ")) {
+            return null;
+        }
+        String rest = value.substring(start + USERS_PATH.length());
+        Integer end = rest.indexOf('/');
+        if (end <= 0) {
+            return null;
+        }
+        return rest.substring(0, end);
+    }
+}
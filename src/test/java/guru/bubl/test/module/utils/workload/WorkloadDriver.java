@@ -0,0 +1,263 @@
+/*
+ * Copyright Vincent Blouin under the GPL License version 3
+ */
+
+package guru.bubl.test.module.utils.workload;
+
+import guru.bubl.module.model.User;
+import guru.bubl.module.model.center_graph_element.CenterGraphElementOperatorFactory;
+import guru.bubl.module.model.graph.GraphFactory;
+import guru.bubl.module.model.graph.ShareLevel;
+import guru.bubl.module.model.graph.Tree;
+import guru.bubl.module.model.graph.pattern.PatternUserFactory;
+import guru.bubl.module.model.graph.subgraph.SubGraphPojo;
+import guru.bubl.module.model.graph.tree_copier.TreeCopierFactory;
+import guru.bubl.module.model.graph.vertex.VertexFactory;
+import guru.bubl.module.model.graph.vertex.VertexOperator;
+import guru.bubl.module.model.search.GraphSearchFactory;
+import guru.bubl.module.neo4j_graph_manipulator.graph.export.ExportToMarkdownFactory;
+import guru.bubl.test.module.utils.synthetic.SyntheticGraph;
+
+import javax.inject.Inject;
+import java.net.URI;
+import java.util.*;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+
+import static guru.bubl.module.model.test.scenarios.TestScenarios.tagFromFriendlyResource;
+
+/*
+ * Runs a weighted mix of model operations from many threads against a
+ * graph built by SyntheticGraphGenerator and reports their latencies.
+ *
+ * Get an instance from the injector, configure it and call run().
+ * Workers still running once the duration and the grace period are over
+ * are interrupted and counted as stragglers in the report. A worker that
+ * dies on an Error fails the run.
+ */
+public class WorkloadDriver {
+
+    private static final String[] SEARCH_TERMS = {
+            "ap", "riv", "boo", "proj", "mus", "tra", "hea", "gar", "sci", "his"
+    };
+
+    @Inject
+    private GraphFactory graphFactory;
+
+    @Inject
+    private VertexFactory vertexFactory;
+
+    @Inject
+    private GraphSearchFactory graphSearchFactory;
+
+    @Inject
+    private CenterGraphElementOperatorFactory centerGraphElementOperatorFactory;
+
+    @Inject
+    private TreeCopierFactory treeCopierFactory;
+
+    @Inject
+    private PatternUserFactory patternUserFactory;
+
+    @Inject
+    private ExportToMarkdownFactory exportToMarkdownFactory;
+
+    private Long seed = 42L;
+    private Integer nbThreads = 32;
+    private Long durationInSeconds = 60L;
+    private Long gracePeriodInSeconds = 30L;
+    private Integer minOperationsPerThread = 0;
+    private ThreadFactory threadFactory = Executors.defaultThreadFactory();
+    private Map<WorkloadOperation, Integer> mix = defaultMix();
+
+    public static Map<WorkloadOperation, Integer> defaultMix() {
+        Map<WorkloadOperation, Integer> mix = new EnumMap<>(WorkloadOperation.class);
+        mix.put(WorkloadOperation.EXTRACT_SUBGRAPH, 40);
+        mix.put(WorkloadOperation.AUTOCOMPLETE_SEARCH, 20);
+        mix.put(WorkloadOperation.INCREMENT_NUMBER_OF_VISITS, 14);
+        mix.put(WorkloadOperation.LABEL, 10);
+        mix.put(WorkloadOperation.ADD_VERTEX_AND_RELATION, 6);
+        mix.put(WorkloadOperation.MAKE_PUBLIC, 4);
+        mix.put(WorkloadOperation.COPY_TREE, 2);
+        mix.put(WorkloadOperation.USE_PATTERN, 2);
+        mix.put(WorkloadOperation.EXPORT_TO_MARKDOWN, 2);
+        return mix;
+    }
+
+    public WorkloadDriver withSeed(Long seed) {
+        this.seed = seed;
+        return this;
+    }
+
+    public WorkloadDriver nbThreads(Integer nbThreads) {
+        this.nbThreads = nbThreads;
+        return this;
+    }
+
+    public WorkloadDriver durationInSeconds(Long durationInSeconds) {
+        this.durationInSeconds = durationInSeconds;
+        return this;
+    }
+
+    public WorkloadDriver gracePeriodInSeconds(Long gracePeriodInSeconds) {
+        this.gracePeriodInSeconds = gracePeriodInSeconds;
+        return this;
+    }
+
+    public WorkloadDriver minOperationsPerThread(Integer minOperationsPerThread) {
+        this.minOperationsPerThread = minOperationsPerThread;
+        return this;
+    }
+
+    public WorkloadDriver threadFactory(ThreadFactory threadFactory) {
+        this.threadFactory = threadFactory;
+        return this;
+    }
+
+    public WorkloadDriver mix(Map<WorkloadOperation, Integer> mix) {
+        this.mix = mix;
+        return this;
+    }
+
+    public WorkloadReport run(SyntheticGraph graph) throws InterruptedException {
+        WorkloadReport report = new WorkloadReport();
+        List<WorkloadOperation> operations = new ArrayList<>(mix.keySet());
+        Integer totalWeight = mix.values().stream().mapToInt(Integer::intValue).sum();
+        ExecutorService executor = Executors.newFixedThreadPool(nbThreads, threadFactory);
+        Long start = System.nanoTime();
+        Long deadline = start + TimeUnit.SECONDS.toNanos(durationInSeconds);
+        List<Future<?>> workers = new ArrayList<>();
+        for (int i = 0; i < nbThreads; i++) {
+            Random random = new Random(seed + i);
+            workers.add(executor.submit(() -> {
+                Integer nbOperations = 0;
+                while ((System.nanoTime() < deadline || nbOperations < minOperationsPerThread) &&
+                        !Thread.currentThread().isInterrupted()) {
+                    WorkloadOperation operation = pick(operations, totalWeight, random);
+                    Long operationStart = System.nanoTime();
+                    nbOperations++;
+                    try {
+                        execute(operation, graph, random);
+                    } catch (Exception e) {
+                        report.recordError(operation, e);
+                        continue;
+                    }
+                    report.recordLatency(operation, System.nanoTime() - operationStart);
+                }
+            }));
+        }
+        executor.shutdown();
+        if (!executor.awaitTermination(durationInSeconds + gracePeriodInSeconds, TimeUnit.SECONDS)) {
+            report.setNbStragglers(
+                    workers.stream().filter(worker -> !worker.isDone()).count()
+            );
+            executor.shutdownNow();
+            if (!executor.awaitTermination(gracePeriodInSeconds, TimeUnit.SECONDS)) {
+                throw new IllegalStateException(
+                        "workload workers still running after being interrupted"
+                );
+            }
+        }
+        report.setElapsedNanos(System.nanoTime() - start);
+        for (Future<?> worker : workers) {
+            if (worker.isCancelled()) {
+                continue;
+            }
+            try {
+                worker.get();
+            } catch (ExecutionException e) {
+                throw new IllegalStateException("a workload worker died", e.getCause());
+            }
+        }
+        return report;
+    }
+
+    private WorkloadOperation pick(List<WorkloadOperation> operations, Integer totalWeight, Random random) {
+        Integer draw = random.nextInt(totalWeight);
+        for (WorkloadOperation operation : operations) {
+            draw -= mix.get(operation);
+            if (draw < 0) {
+                return operation;
+            }
+        }
+        return operations.get(operations.size() - 1);
+    }
+
+    private void execute(WorkloadOperation operation, SyntheticGraph graph, Random random) {
+        URI vertexUri = randomOf(graph.getVertexUris(), random);
+        User owner = graph.ownerOf(vertexUri);
+        switch (operation) {
+            case EXTRACT_SUBGRAPH:
+                graphFactory.loadForUser(owner).aroundForkUriInShareLevels(
+                        vertexUri,
+                        ShareLevel.allShareLevelsInt
+                );
+                break;
+            case AUTOCOMPLETE_SEARCH:
+                graphSearchFactory.usingSearchTerm(
+                        randomOf(Arrays.asList(SEARCH_TERMS), random)
+                ).searchOnlyForOwnVerticesForAutoCompletionByLabel(owner);
+                break;
+            case INCREMENT_NUMBER_OF_VISITS:
+                centerGraphElementOperatorFactory.usingFriendlyResource(
+                        vertexFactory.withUri(vertexUri)
+                ).incrementNumberOfVisits();
+                break;
+            case ADD_VERTEX_AND_RELATION:
+                vertexFactory.withUri(vertexUri).addVertexAndRelation();
+                break;
+            case LABEL:
+                vertexFactory.withUri(vertexUri).label(
+                        randomOf(Arrays.asList(SEARCH_TERMS), random) + " " + random.nextInt(1000)
+                );
+                break;
+            case MAKE_PUBLIC:
+                vertexFactory.withUri(vertexUri).makePublic();
+                break;
+            case COPY_TREE:
+                copyTree(graph, random);
+                break;
+            case USE_PATTERN:
+                if (!graph.getPatternUris().isEmpty()) {
+                    patternUserFactory.forUserAndPatternUri(
+                            randomOf(graph.getUsers(), random),
+                            randomOf(graph.getPatternUris(), random)
+                    ).use();
+                }
+                break;
+            case EXPORT_TO_MARKDOWN:
+                exportToMarkdownFactory.withUsername(owner.username()).exportStrings();
+                break;
+        }
+    }
+
+    private void copyTree(SyntheticGraph graph, Random random) {
+        URI centerUri = randomOf(graph.getCenterUris(), random);
+        User owner = graph.ownerOf(centerUri);
+        SubGraphPojo tree = graphFactory.loadForUser(owner).aroundForkUriInShareLevels(
+                centerUri,
+                ShareLevel.allShareLevelsInt
+        );
+        Set<URI> uris = new HashSet<>(tree.vertices().keySet());
+        uris.addAll(tree.edges().keySet());
+        VertexOperator center = vertexFactory.withUri(centerUri);
+        treeCopierFactory.forCopier(
+                randomOf(graph.getUsers(), random)
+        ).copyTreeOfUser(
+                Tree.withUrisOfGraphElementsAndRootUriAndTag(
+                        uris,
+                        centerUri,
+                        tagFromFriendlyResource(center)
+                ),
+                owner
+        );
+    }
+
+    private <T> T randomOf(List<T> list, Random random) {
+        return list.get(random.nextInt(list.size()));
+    }
+}
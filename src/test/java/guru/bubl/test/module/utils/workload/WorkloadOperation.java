@@ -0,0 +1,17 @@
+/*
+ * Copyright Vincent Blouin under the GPL License version 3
+ */
+
+package guru.bubl.test.module.utils.workload;
+
+public enum WorkloadOperation {
+    EXTRACT_SUBGRAPH,
+    AUTOCOMPLETE_SEARCH,
+    INCREMENT_NUMBER_OF_VISITS,
+    ADD_VERTEX_AND_RELATION,
+    LABEL,
+    MAKE_PUBLIC,
+    COPY_TREE,
+    USE_PATTERN,
+    EXPORT_TO_MARKDOWN
+}
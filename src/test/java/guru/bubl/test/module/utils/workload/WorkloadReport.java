@@ -0,0 +1,150 @@
+/*
+ * Copyright Vincent Blouin under the GPL License version 3
+ */
+
+package guru.bubl.test.module.utils.workload;
+
+import org.HdrHistogram.ConcurrentHistogram;
+import org.HdrHistogram.Histogram;
+import org.neo4j.driver.exceptions.Neo4jException;
+import org.neo4j.driver.exceptions.TransientException;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/*
+ * Latencies of the successful operations are recorded in microseconds,
+ * one histogram per operation.
+ * Failures are split in deadlocks, other transient errors and the rest.
+ * Stragglers are the workers that had to be interrupted at the end.
+ */
+public class WorkloadReport {
+
+    private final Map<WorkloadOperation, Histogram> latencies = new EnumMap<>(WorkloadOperation.class);
+    private final Map<WorkloadOperation, LongAdder> deadlocks = new EnumMap<>(WorkloadOperation.class);
+    private final Map<WorkloadOperation, LongAdder> transientErrors = new EnumMap<>(WorkloadOperation.class);
+    private final Map<WorkloadOperation, LongAdder> otherErrors = new EnumMap<>(WorkloadOperation.class);
+    private Long elapsedNanos = 0L;
+    private Long nbStragglers = 0L;
+
+    public WorkloadReport() {
+        for (WorkloadOperation operation : WorkloadOperation.values()) {
+            latencies.put(operation, new ConcurrentHistogram(3));
+            deadlocks.put(operation, new LongAdder());
+            transientErrors.put(operation, new LongAdder());
+            otherErrors.put(operation, new LongAdder());
+        }
+    }
+
+    public void recordLatency(WorkloadOperation operation, Long nanos) {
+        latencies.get(operation).recordValue(nanos / 1000);
+    }
+
+    public void recordError(WorkloadOperation operation, Throwable error) {
+        if (isDeadlock(error)) {
+            deadlocks.get(operation).increment();
+        } else if (isTransient(error)) {
+            transientErrors.get(operation).increment();
+        } else {
+            otherErrors.get(operation).increment();
+        }
+    }
+
+    public void setElapsedNanos(Long elapsedNanos) {
+        this.elapsedNanos = elapsedNanos;
+    }
+
+    public void setNbStragglers(Long nbStragglers) {
+        this.nbStragglers = nbStragglers;
+    }
+
+    public Long getNbStragglers() {
+        return nbStragglers;
+    }
+
+    public Long getNbOperations() {
+        return latencies.values().stream().mapToLong(Histogram::getTotalCount).sum();
+    }
+
+    public Long getNbOperations(WorkloadOperation operation) {
+        return latencies.get(operation).getTotalCount();
+    }
+
+    public Long getNbDeadlocks() {
+        return deadlocks.values().stream().mapToLong(LongAdder::sum).sum();
+    }
+
+    public Long getNbTransientErrors() {
+        return transientErrors.values().stream().mapToLong(LongAdder::sum).sum();
+    }
+
+    public Long getNbOtherErrors() {
+        return otherErrors.values().stream().mapToLong(LongAdder::sum).sum();
+    }
+
+    public Histogram getLatencies(WorkloadOperation operation) {
+        return latencies.get(operation);
+    }
+
+    public Double throughput() {
+        return elapsedNanos == 0 ? 0 : getNbOperations() / (elapsedNanos / 1e9);
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder report = new StringBuilder(String.format(
+                "%d successful operations in %.1f s, %.1f ops/s, %d deadlocks, %d transient errors, %d other errors, %d stragglers%n",
+                getNbOperations(),
+                elapsedNanos / 1e9,
+                throughput(),
+                getNbDeadlocks(),
+                getNbTransientErrors(),
+                getNbOtherErrors(),
+                nbStragglers
+        ));
+        report.append(String.format(
+                "%-28s %8s %9s %9s %9s %9s %9s %6s %6s %6s%n",
+                "operation (latencies in ms)", "count", "p50", "p90", "p99", "p99.9", "max", "dead", "trans", "other"
+        ));
+        for (WorkloadOperation operation : WorkloadOperation.values()) {
+            Histogram histogram = latencies.get(operation);
+            if (histogram.getTotalCount() == 0) {
+                continue;
+            }
+            report.append(String.format(
+                    "%-28s %8d %9.2f %9.2f %9.2f %9.2f %9.2f %6d %6d %6d%n",
+                    operation,
+                    histogram.getTotalCount(),
+                    histogram.getValueAtPercentile(50) / 1000.0,
+                    histogram.getValueAtPercentile(90) / 1000.0,
+                    histogram.getValueAtPercentile(99) / 1000.0,
+                    histogram.getValueAtPercentile(99.9) / 1000.0,
+                    histogram.getMaxValue() / 1000.0,
+                    deadlocks.get(operation).sum(),
+                    transientErrors.get(operation).sum(),
+                    otherErrors.get(operation).sum()
+            ));
+        }
+        return report.toString();
+    }
+
+    private Boolean isDeadlock(Throwable error) {
+        for (Throwable cause = error; cause != null; cause = cause.getCause()) {
+            if (cause.getClass().getSimpleName().contains("Deadlock") ||
+                    (cause instanceof Neo4jException && String.valueOf(((Neo4jException) cause).code()).contains("DeadlockDetected"))) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private Boolean isTransient(Throwable error) {
+        for (Throwable cause = error; cause != null; cause = cause.getCause()) {
+            if (cause instanceof TransientException) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
@@ -7,27 +7,39 @@ package js_test_data;
 import com.google.inject.AbstractModule;
 import com.google.inject.Guice;
 import com.google.inject.Injector;
+import com.google.inject.Module;
+import com.google.inject.util.Modules;
 import guru.bubl.module.model.ModelModule;
 import guru.bubl.module.model.ModelTestModule;
 import guru.bubl.module.model.ModelTestScenarios;
 import guru.bubl.module.model.test.GraphComponentTest;
 import guru.bubl.module.neo4j_graph_manipulator.graph.Neo4jModule;
 import guru.bubl.module.neo4j_graph_manipulator.graph.embedded.admin.Neo4jModuleForTests;
+import guru.bubl.test.module.utils.neo4j.DriverInterception;
+import guru.bubl.test.module.utils.neo4j.SlowQueryLog;
 
 public class JsTestScenariosStarter {
 
     protected static Injector injector;
 
     public static void main(String[] args) throws Exception {
-        injector = Guice.createInjector(
+        SlowQueryLog slowQueryLog = SlowQueryLog.fromSystemProperties();
+        Module neo4jModules = Modules.combine(
                 Neo4jModuleForTests.usingEmbedded(),
-                Neo4jModule.usingEmbedded(),
+                Neo4jModule.usingEmbedded()
+        );
+        injector = Guice.createInjector(
+                SlowQueryLog.isEnabled() ? DriverInterception.around(
+                        neo4jModules,
+                        slowQueryLog
+                ) : neo4jModules,
                 ModelModule.forTesting(),
                 new ModelTestModule(),
                 new AbstractModule() {
                     @Override
                     protected void configure() {
                         requireBinding(ModelTestScenarios.class);
+                        bind(SlowQueryLog.class).toInstance(slowQueryLog);
                     }
                 }
         );
@@ -36,6 +48,9 @@ public class JsTestScenariosStarter {
                 JsTestScenariosBuilder.class
         );
         jsTestScenariosBuilder.build(injector);
+        if (SlowQueryLog.isEnabled() && slowQueryLog.getNbLogged() > 0) {
+            System.out.println(slowQueryLog);
+        }
         System.exit(0);
     }
 